@@ -0,0 +1,204 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Нагрузочный генератор для сравнения режимов потоков.
+ * Замкнутая модель: каждый из concurrency клиентов отправляет следующий запрос сразу после ответа
+ * на предыдущий. Смесь запросов к JSON API: 60% списков, 25% чтений заметки, 15% созданий
+ * с напоминанием. Задержки после прогрева собираются целиком, перцентили считаются по ним точно.
+ *
+ * Запуск: java bench/LoadGenerator.java [baseUrl] [concurrency] [warmupSeconds] [durationSeconds]
+ * Учётные данные: BENCH_USERNAME и BENCH_PASSWORD, по умолчанию тестовый user1.
+ */
+public class LoadGenerator {
+
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern NOTE_ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final int MAX_KNOWN_IDS = 1024;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    private final AtomicLongArray knownIds = new AtomicLongArray(MAX_KNOWN_IDS);
+    private final AtomicLong knownCount = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private String token;
+
+    LoadGenerator(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int warmup = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int duration = args.length > 3 ? Integer.parseInt(args[3]) : 60;
+
+        LoadGenerator generator = new LoadGenerator(baseUrl);
+        generator.login(env("BENCH_USERNAME", "user1"), env("BENCH_PASSWORD", "password"));
+        generator.seed();
+        generator.run(concurrency, warmup, duration);
+    }
+
+    void login(String username, String password) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/token"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = ACCESS_TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Login failed: HTTP " + response.statusCode());
+        }
+        token = matcher.group(1);
+    }
+
+    // Заметки для чтения: уже существующие и несколько созданных перед замером
+    void seed() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            create();
+        }
+        remember(send(get("/api/notes?fields=id&limit=" + MAX_KNOWN_IDS)).body());
+    }
+
+    void run(int concurrency, int warmupSeconds, int durationSeconds) throws InterruptedException {
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+        List<Samples> samples = new ArrayList<>();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                Samples latencies = new Samples();
+                samples.add(latencies);
+                clients.execute(() -> {
+                    while (true) {
+                        long start = System.nanoTime();
+                        if (start >= end) {
+                            break;
+                        }
+                        boolean ok = step();
+                        long finish = System.nanoTime();
+                        if (!ok) {
+                            errors.incrementAndGet();
+                        } else if (start >= warmupEnd) {
+                            latencies.add(finish - start);
+                        }
+                    }
+                });
+            }
+        }
+
+        int total = samples.stream().mapToInt(Samples::size).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (Samples latencies : samples) {
+            offset = latencies.copyTo(all, offset);
+        }
+        Arrays.sort(all);
+        System.out.printf("concurrency=%d duration=%ds requests=%d errors=%d%n",
+                concurrency, durationSeconds, total, errors.get());
+        System.out.printf("throughput=%.1f req/s%n", total / (double) durationSeconds);
+        System.out.printf("p50=%.2f ms p90=%.2f ms p99=%.2f ms p99.9=%.2f ms max=%.2f ms%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99),
+                percentile(all, 0.999), all.length > 0 ? all[all.length - 1] / 1e6 : 0.0);
+    }
+
+    private boolean step() {
+        try {
+            int roll = ThreadLocalRandom.current().nextInt(100);
+            if (roll < 60) {
+                return send(get("/api/notes?limit=20")).statusCode() == 200;
+            }
+            if (roll < 85) {
+                long known = Math.min(knownCount.get(), MAX_KNOWN_IDS);
+                long id = knownIds.get((int) ThreadLocalRandom.current().nextLong(Math.max(known, 1)));
+                int status = send(get("/api/notes/" + id)).statusCode();
+                return status == 200 || status == 404;
+            }
+            return create() == 201;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private int create() throws Exception {
+        String reminder = LocalDateTime.now().plusDays(1).withNano(0).toString();
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/notes"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"title\":\"bench\",\"content\":\"load test note\","
+                        + "\"reminder\":\"" + reminder + "\"}")));
+        if (response.statusCode() == 201) {
+            remember(response.body());
+        }
+        return response.statusCode();
+    }
+
+    private void remember(String body) {
+        Matcher matcher = NOTE_ID.matcher(body);
+        while (matcher.find()) {
+            long slot = knownCount.getAndIncrement() % MAX_KNOWN_IDS;
+            knownIds.set((int) slot, Long.parseLong(matcher.group(1)));
+        }
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+
+    // Задержки одного клиента; пишет только его поток, читается после завершения всех клиентов
+    private static final class Samples {
+        private long[] values = new long[4096];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int copyTo(long[] target, int offset) {
+            System.arraycopy(values, 0, target, offset, size);
+            return offset + size;
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isBlank() ? value : defaultValue;
+    }
+}
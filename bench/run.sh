@@ -0,0 +1,45 @@
+#!/usr/bin/env bash
+# Сравнение режимов потоков: приложение поднимается в docker compose поочерёдно с платформенными
+# и виртуальными потоками при одинаковом размере пула Hikari, затем на него подаётся одинаковая нагрузка.
+# Требуются Docker Compose v2 и JDK 21 для запуска генератора.
+#
+#   bench/run.sh [concurrency] [warmupSeconds] [durationSeconds]
+#
+# Результаты пишутся в bench/results/<режим>.txt.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+CONCURRENCY="${1:-200}"
+WARMUP="${2:-20}"
+DURATION="${3:-60}"
+export HIKARI_POOL_SIZE="${HIKARI_POOL_SIZE:-10}"
+RESULTS=bench/results
+
+mvn -B -q -DskipTests package
+mkdir -p "$RESULTS"
+
+for mode in platform virtual; do
+    if [ "$mode" = virtual ]; then
+        export SPRING_THREADS_VIRTUAL_ENABLED=true
+        # Сообщает в лог о виртуальных потоках, закреплённых за потоком ОС при блокировке
+        export JAVA_OPTS="-Djdk.tracePinnedThreads=short"
+    else
+        export SPRING_THREADS_VIRTUAL_ENABLED=false
+        export JAVA_OPTS=""
+    fi
+
+    echo "== $mode threads, Hikari pool $HIKARI_POOL_SIZE"
+    docker compose up -d --build --force-recreate --wait app
+    java bench/LoadGenerator.java http://localhost:8080 "$CONCURRENCY" "$WARMUP" "$DURATION" \
+        | tee "$RESULTS/$mode.txt"
+    pinned=$(docker compose logs app | grep -c "pinned" || true)
+    echo "pinned-thread-reports=$pinned" | tee -a "$RESULTS/$mode.txt"
+    docker compose stop app
+done
+
+echo
+for mode in platform virtual; do
+    echo "-- $mode"
+    cat "$RESULTS/$mode.txt"
+done
@@ -0,0 +1,110 @@
+package com.notesystem.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.notesystem.model.Note;
+import com.notesystem.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Второй уровень кеша Hibernate на Caffeine через JCache.
+ * Каждая область включается отдельно в notes.cache.regions, у каждой свои размер и время жизни,
+ * поэтому снижение нагрузки на базу можно измерять по областям. Статистика областей
+ * публикуется в метриках cache.* с тегом cache, равным имени области.
+ */
+@Configuration
+public class CacheConfig {
+
+    public static final String NOTE_REGION = "note";
+    public static final String USER_REGION = "user";
+    // Настройка Hibernate вида hibernate.classcache.<класс> = <стратегия>,<область>
+    private static final String CLASS_CACHE_PREFIX = "hibernate.classcache.";
+
+    private static final Logger log = LoggerFactory.getLogger(CacheConfig.class);
+
+    /**
+     * Настройки области кеша.
+     */
+    public record RegionSettings(boolean enabled, long maxSize, Duration ttl) {
+    }
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(Environment environment, MeterRegistry meterRegistry) {
+        Map<String, RegionSettings> regions = regions(environment);
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager();
+        regions.forEach((name, settings) -> {
+            if (settings.enabled()) {
+                createCache(cacheManager, meterRegistry, name, settings);
+                log.info("Second-level cache region {} enabled: max-size {}, ttl {}",
+                        name, settings.maxSize(), settings.ttl());
+            }
+        });
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager,
+                                                                    Environment environment) {
+        Map<String, RegionSettings> regions = regions(environment);
+        return properties -> {
+            boolean noteCached = enabled(regions, NOTE_REGION);
+            boolean userCached = enabled(regions, USER_REGION);
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, noteCached || userCached);
+            // Поиск пользователя по имени при входе кеширует CustomUserDetailsService, других повторяющихся
+            // запросов Hibernate нет, поэтому кеш запросов не нужен
+            properties.put(AvailableSettings.USE_QUERY_CACHE, false);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            // Все области создаются здесь с явными ограничениями, неизвестная область — ошибка конфигурации
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            // Кешируемые сущности задаются настройками, а не аннотациями, чтобы их можно было выключить
+            if (noteCached) {
+                properties.put(CLASS_CACHE_PREFIX + Note.class.getName(),
+                        "read-write," + NOTE_REGION);
+            }
+            if (userCached) {
+                properties.put(CLASS_CACHE_PREFIX + User.class.getName(),
+                        "read-write," + USER_REGION);
+            }
+        };
+    }
+
+    private static void createCache(CacheManager cacheManager, MeterRegistry meterRegistry, String name,
+                                    RegionSettings settings) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(settings.maxSize()));
+        configuration.setExpireAfterWrite(OptionalLong.of(settings.ttl().toNanos()));
+        configuration.setStatisticsEnabled(true);
+        Cache<Object, Object> cache = cacheManager.createCache(name, configuration);
+        JCacheMetrics.monitor(meterRegistry, cache);
+    }
+
+    private static Map<String, RegionSettings> regions(Environment environment) {
+        return Binder.get(environment)
+                .bind("notes.cache.regions", Bindable.mapOf(String.class, RegionSettings.class))
+                .orElse(Map.of());
+    }
+
+    private static boolean enabled(Map<String, RegionSettings> regions, String name) {
+        RegionSettings settings = regions.get(name);
+        return settings != null && settings.enabled();
+    }
+}
@@ -0,0 +1,70 @@
+package com.notesystem.config;
+
+import freemarker.ext.beans.MethodAppearanceFineTuner;
+import freemarker.template.DefaultObjectWrapper;
+import freemarker.template.SimpleDate;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.Version;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.view.freemarker.FreeMarkerConfigurer;
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Представление моделей в шаблонах FreeMarker.
+ * Без настройки одноимённый метод доступа record-класса (id()) закрывает свойство, и ${note.id}
+ * вычисляется в метод, а не в значение; здесь методы доступа публикуются как свойства.
+ * Даты java.time передаются в шаблоны как даты FreeMarker, чтобы работали ?date и ?string('dd.MM.yyyy').
+ */
+@Configuration
+public class FreeMarkerConfig {
+
+    private static final MethodAppearanceFineTuner RECORD_ACCESSORS = (in, out) -> {
+        Method method = in.getMethod();
+        if (!method.getDeclaringClass().isRecord()) {
+            return;
+        }
+        for (RecordComponent component : method.getDeclaringClass().getRecordComponents()) {
+            if (component.getAccessor().equals(method)) {
+                try {
+                    out.setExposeAsProperty(new PropertyDescriptor(component.getName(), method, null));
+                } catch (IntrospectionException e) {
+                    throw new IllegalStateException(e);
+                }
+                out.setExposeMethodAs(null);
+                return;
+            }
+        }
+    };
+
+    public FreeMarkerConfig(FreeMarkerConfigurer configurer) {
+        freemarker.template.Configuration configuration = configurer.getConfiguration();
+        DefaultObjectWrapper wrapper = new JavaTimeObjectWrapper(configuration.getIncompatibleImprovements());
+        wrapper.setMethodAppearanceFineTuner(RECORD_ACCESSORS);
+        configuration.setObjectWrapper(wrapper);
+    }
+
+    private static final class JavaTimeObjectWrapper extends DefaultObjectWrapper {
+
+        private JavaTimeObjectWrapper(Version incompatibleImprovements) {
+            super(incompatibleImprovements);
+        }
+
+        @Override
+        protected TemplateModel handleUnknownType(Object obj) throws TemplateModelException {
+            if (obj instanceof LocalDate date) {
+                return new SimpleDate(java.sql.Date.valueOf(date));
+            }
+            if (obj instanceof LocalDateTime dateTime) {
+                return new SimpleDate(Timestamp.valueOf(dateTime));
+            }
+            return super.handleUnknownType(obj);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.notesystem.config;
+
+import com.notesystem.dto.ReminderEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Десериализатор событий напоминаний, парный к {@link ReminderEventSerializer}.
+ * Длины из сообщения сверяются с оставшимися байтами до выделения памяти под них.
+ */
+public class ReminderEventDeserializer implements Deserializer<ReminderEvent> {
+
+    private static final ReminderEvent.Type[] TYPES = ReminderEvent.Type.values();
+
+    @Override
+    public ReminderEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        // Любой обрыв данных, включая пустое сообщение, должен стать SerializationException для обработчика ошибок
+        try {
+            byte version = buffer.get();
+            if (version != ReminderEventSerializer.FORMAT_VERSION) {
+                throw new SerializationException("Неподдерживаемая версия события: " + version);
+            }
+            ReminderEvent.Type type = TYPES[buffer.get()];
+            long userId = readVarLong(buffer);
+            // Каждый элемент занимает хотя бы один байт, так что больше элементов в сообщении быть не может
+            int count = readLength(buffer);
+            List<ReminderEvent.Item> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                items.add(readItem(buffer, data, readVarLong(buffer)));
+            }
+            return new ReminderEvent(type, userId, items);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | DateTimeException e) {
+            throw new SerializationException("Повреждённое событие напоминания", e);
+        }
+    }
+
+    private static ReminderEvent.Item readItem(ByteBuffer buffer, byte[] data, long noteId) {
+        long zigzag = readVarLong(buffer);
+        long dueAt = (zigzag >>> 1) ^ -(zigzag & 1);
+        int titleLength = readLength(buffer);
+        String title = new String(data, buffer.position(), titleLength, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + titleLength);
+        return new ReminderEvent.Item(noteId, title, LocalDateTime.ofEpochSecond(dueAt, 0, ZoneOffset.UTC));
+    }
+
+    private static int readLength(ByteBuffer buffer) {
+        long length = readVarLong(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new SerializationException("Длина " + length + " превышает остаток события: " + buffer.remaining());
+        }
+        return (int) length;
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 63) {
+                throw new SerializationException("Слишком длинное число varint");
+            }
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,47 @@
+package com.notesystem.config;
+
+import com.notesystem.dto.ReminderEvent;
+import org.apache.kafka.common.serialization.Serializer;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+
+/**
+ * Компактный двоичный сериализатор событий напоминаний.
+ * Формат: версия, тип, userId и число элементов в varint, затем для каждого элемента
+ * noteId (varint), срок в секундах эпохи (zigzag varint) и заголовок в UTF-8 с префиксом длины.
+ */
+public class ReminderEventSerializer implements Serializer<ReminderEvent> {
+
+    static final byte FORMAT_VERSION = 1;
+
+    @Override
+    public byte[] serialize(String topic, ReminderEvent event) {
+        if (event == null) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + 48 * event.items().size());
+
+        out.write(FORMAT_VERSION);
+        out.write(event.type().ordinal());
+        writeVarLong(out, event.userId());
+        writeVarLong(out, event.items().size());
+        for (ReminderEvent.Item item : event.items()) {
+            byte[] title = item.title() != null ? item.title().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            writeVarLong(out, item.noteId());
+            long dueAt = item.dueAt() != null ? item.dueAt().toEpochSecond(ZoneOffset.UTC) : 0L;
+            writeVarLong(out, (dueAt << 1) ^ (dueAt >> 63));
+            writeVarLong(out, title.length);
+            out.write(title, 0, title.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
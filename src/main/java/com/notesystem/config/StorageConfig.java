@@ -0,0 +1,106 @@
+package com.notesystem.config;
+
+import com.notesystem.service.BlobCache;
+import com.notesystem.service.BlobStore;
+import com.notesystem.service.LocalBlobStore;
+import com.notesystem.service.S3BlobStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Конфигурация хранилища изображений.
+ * Локальный каталог подходит для одного экземпляра; при нескольких экземплярах за балансировщиком
+ * используется S3-совместимое хранилище, общее для всех.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "notes.storage.backend", havingValue = "local", matchIfMissing = true)
+    public BlobStore localBlobStore(@Value("${notes.storage.upload-dir}") String uploadDir) throws IOException {
+        return new LocalBlobStore(Paths.get(uploadDir));
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "notes.storage.backend", havingValue = "s3")
+    static class S3StorageConfig {
+
+        @Value("${notes.storage.s3.endpoint}")
+        private String endpoint;
+
+        @Value("${notes.storage.s3.region}")
+        private String region;
+
+        @Value("${notes.storage.s3.access-key}")
+        private String accessKey;
+
+        @Value("${notes.storage.s3.secret-key}")
+        private String secretKey;
+
+        // MinIO и большинство совместимых хранилищ не поддерживают адресацию бакета через поддомен
+        @Value("${notes.storage.s3.path-style}")
+        private boolean pathStyle;
+
+        @Bean(destroyMethod = "close")
+        public S3Client s3Client() {
+            var builder = S3Client.builder()
+                    .region(Region.of(region))
+                    .credentialsProvider(credentials())
+                    .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build());
+            if (StringUtils.hasText(endpoint)) {
+                builder.endpointOverride(URI.create(endpoint));
+            }
+            return builder.build();
+        }
+
+        @Bean(destroyMethod = "close")
+        public S3Presigner s3Presigner() {
+            var builder = S3Presigner.builder()
+                    .region(Region.of(region))
+                    .credentialsProvider(credentials())
+                    .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build());
+            if (StringUtils.hasText(endpoint)) {
+                builder.endpointOverride(URI.create(endpoint));
+            }
+            return builder.build();
+        }
+
+        @Bean
+        public BlobStore s3BlobStore(S3Client s3Client,
+                                     S3Presigner s3Presigner,
+                                     @Value("${notes.storage.s3.bucket}") String bucket,
+                                     @Value("${notes.storage.s3.part-size}") DataSize partSize,
+                                     @Value("${notes.storage.s3.presign-downloads}") boolean presignDownloads,
+                                     @Value("${notes.storage.s3.presign-ttl}") Duration presignTtl,
+                                     @Value("${notes.storage.cache.dir}") String cacheDir,
+                                     @Value("${notes.storage.cache.max-size}") DataSize cacheMaxSize) throws IOException {
+            BlobCache cache = new BlobCache(Paths.get(cacheDir), cacheMaxSize.toBytes());
+            return new S3BlobStore(s3Client, s3Presigner, bucket, partSize.toBytes(), cache,
+                    presignDownloads ? presignTtl : null);
+        }
+
+        // Без явных ключей используется стандартная цепочка: переменные окружения, профиль, роль экземпляра
+        private AwsCredentialsProvider credentials() {
+            if (StringUtils.hasText(accessKey)) {
+                return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+            }
+            return DefaultCredentialsProvider.create();
+        }
+    }
+}
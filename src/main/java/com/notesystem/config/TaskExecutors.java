@@ -0,0 +1,26 @@
+package com.notesystem.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Исполнители для собственных фоновых задач приложения.
+ * В режиме виртуальных потоков (spring.threads.virtual.enabled) каждая задача получает свой
+ * виртуальный поток, и ожидание сети, базы или диска не занимает поток ОС. Параллельность
+ * при этом ограничивают сами вызывающие: счётчики активных задач, лимитеры и пул соединений.
+ */
+public final class TaskExecutors {
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * @param platformThreads размер пула в режиме платформенных потоков
+     */
+    public static ExecutorService newExecutor(String name, int platformThreads, boolean virtualThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(platformThreads, Thread.ofPlatform().name(name + "-", 0).factory());
+    }
+}
@@ -0,0 +1,37 @@
+package com.notesystem.config;
+
+import com.notesystem.service.TelegramBotClient;
+import com.notesystem.service.TelegramRateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.time.Duration;
+
+/**
+ * Конфигурация доставки уведомлений в Telegram.
+ * Настраивает HTTP-клиент и ограничители скорости Bot API.
+ */
+@Configuration
+public class TelegramConfig {
+
+    @Bean
+    public TelegramBotClient telegramBotClient(
+            @Value("${notes.telegram.api-url}") String apiUrl,
+            @Value("${notes.telegram.bot-token}") String botToken,
+            @Value("${notes.telegram.http.connect-timeout}") Duration connectTimeout,
+            @Value("${notes.telegram.http.request-timeout}") Duration requestTimeout,
+            @Value("${notes.telegram.retry.max-attempts}") int maxAttempts,
+            @Value("${notes.telegram.retry.backoff}") Duration backoff,
+            @Value("${notes.telegram.retry.max-backoff}") Duration maxBackoff) {
+        return new TelegramBotClient(apiUrl, botToken, connectTimeout, requestTimeout,
+                maxAttempts, backoff, maxBackoff);
+    }
+
+    @Bean
+    public TelegramRateLimiter telegramRateLimiter(
+            @Value("${notes.telegram.rate.global-per-second}") double globalPerSecond,
+            @Value("${notes.telegram.rate.chat-per-second}") double chatPerSecond,
+            @Value("${notes.telegram.rate.chat-burst}") double chatBurst) {
+        return new TelegramRateLimiter(globalPerSecond, chatPerSecond, chatBurst);
+    }
+}
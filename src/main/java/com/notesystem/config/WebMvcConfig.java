@@ -1,29 +1,45 @@
 package com.notesystem.config;
 
+import jakarta.servlet.MultipartConfigElement;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
  * Конфигурация веб-слоя приложения.
- * Настраивает обработчики ресурсов и статических файлов.
+ * Настраивает обработчики ресурсов и статических файлов, а также лимит загрузки для импорта.
  */
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
-    @Value("${notes.storage.upload-dir}")
-    private String uploadDir;
-
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Доступ к загруженным изображениям
-        registry.addResourceHandler("/images/**")
-                .addResourceLocations("file:" + uploadDir + "/");
-
         // Документация Swagger
         registry.addResourceHandler("/swagger-ui/**")
                 .addResourceLocations("classpath:/META-INF/resources/webjars/springdoc-openapi-ui/")
                 .resourceChain(false);
     }
-}
\ No newline at end of file
+
+    /**
+     * Импорт принимает файлы больше общего лимита multipart. Tomcat задаёт лимит на сервлет,
+     * поэтому адрес импорта обслуживает отдельный DispatcherServlet с тем же контекстом и контроллерами,
+     * а остальные формы сохраняют общий лимит spring.servlet.multipart.
+     */
+    @Bean
+    public ServletRegistrationBean<DispatcherServlet> importServletRegistration(
+            WebApplicationContext context,
+            @Value("${notes.import.max-file-size}") DataSize maxFileSize) {
+        ServletRegistrationBean<DispatcherServlet> registration =
+                new ServletRegistrationBean<>(new DispatcherServlet(context), "/notes/import");
+        registration.setName("importDispatcherServlet");
+        registration.setLoadOnStartup(1);
+        registration.setMultipartConfig(new MultipartConfigElement("", maxFileSize.toBytes(), maxFileSize.toBytes(), 0));
+        return registration;
+    }
+}
@@ -0,0 +1,70 @@
+package com.notesystem.controller;
+
+import com.notesystem.dto.AuthPrincipal;
+import com.notesystem.dto.LoginRequest;
+import com.notesystem.dto.RefreshRequest;
+import com.notesystem.dto.TokenPair;
+import com.notesystem.model.User;
+import com.notesystem.service.TokenService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Выдача, обновление и отзыв токенов API.
+ * Сессия на сервере не создаётся: каждый запрос к /api/** несёт access-токен.
+ */
+@RestController
+@RequestMapping("/api/auth")
+public class AuthApiController {
+
+    private final AuthenticationProvider authenticationProvider;
+    private final TokenService tokenService;
+
+    public AuthApiController(AuthenticationProvider authenticationProvider, TokenService tokenService) {
+        this.authenticationProvider = authenticationProvider;
+        this.tokenService = tokenService;
+    }
+
+    @PostMapping("/token")
+    public ResponseEntity<TokenPair> token(@Valid @RequestBody LoginRequest request) {
+        try {
+            Authentication authentication = authenticationProvider.authenticate(
+                    UsernamePasswordAuthenticationToken.unauthenticated(request.username(), request.password()));
+            return ResponseEntity.ok(tokenService.issue((User) authentication.getPrincipal()));
+        } catch (AuthenticationException e) {
+            return ResponseEntity.status(401).build();
+        }
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<TokenPair> refresh(@Valid @RequestBody RefreshRequest request) {
+        try {
+            return ResponseEntity.ok(tokenService.refresh(request.refreshToken()));
+        } catch (AuthenticationException e) {
+            return ResponseEntity.status(401).build();
+        }
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(Authentication authentication,
+                                       @RequestBody(required = false) RefreshRequest request) {
+        tokenService.logout((TokenService.AccessToken) authentication.getCredentials(),
+                request != null ? request.refreshToken() : null);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/me")
+    public AuthPrincipal me(@AuthenticationPrincipal AuthPrincipal principal) {
+        return principal;
+    }
+}
@@ -1,34 +1,216 @@
 package com.notesystem.controller;
 
+import com.notesystem.dto.ExportFormat;
+import com.notesystem.dto.ExportJob;
 import com.notesystem.model.User;
+import com.notesystem.service.ExportJobService;
 import com.notesystem.service.ExportService;
+import com.notesystem.service.LocalFile;
+import com.notesystem.service.NoteService;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Контроллер для экспорта данных.
- * Предоставляет возможность экспорта заметок в Excel.
+ * Предоставляет экспорт заметок в Excel, CSV и NDJSON, а также фоновые выгрузки
+ * с возобновляемым скачиванием результата.
  */
 @Controller
 @RequestMapping("/export")
 public class ExportController {
 
+    private static final int GZIP_BUFFER_SIZE = 8192;
     private final ExportService exportService;
+    private final ExportJobService exportJobService;
+    private final NoteService noteService;
 
-    public ExportController(ExportService exportService) {
+    public ExportController(ExportService exportService, ExportJobService exportJobService,
+                            NoteService noteService) {
         this.exportService = exportService;
+        this.exportJobService = exportJobService;
+        this.noteService = noteService;
     }
 
     @GetMapping("/excel")
     public void exportToExcel(@AuthenticationPrincipal User user,
+                              ServletWebRequest request,
                               HttpServletResponse response) throws IOException {
-        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        if (notModified(request, user, ExportFormat.EXCEL)) {
+            return;
+        }
+        response.setContentType(ExportFormat.EXCEL.getContentType());
         response.setHeader("Content-Disposition", "attachment; filename=notes.xlsx");
-        exportService.exportNotesToExcel(user, response.getOutputStream());
+        exportService.exportNotes(user.getId(), ExportFormat.EXCEL, response.getOutputStream(), rows -> { });
     }
-}
\ No newline at end of file
+
+    @GetMapping("/csv")
+    public ResponseEntity<StreamingResponseBody> exportToCsv(
+            @AuthenticationPrincipal User user,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            ServletWebRequest request) {
+        if (notModified(request, user, ExportFormat.CSV)) {
+            return null;
+        }
+        return exportAsText(user, ExportFormat.CSV, acceptEncoding);
+    }
+
+    @GetMapping("/ndjson")
+    public ResponseEntity<StreamingResponseBody> exportToNdjson(
+            @AuthenticationPrincipal User user,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            ServletWebRequest request) {
+        if (notModified(request, user, ExportFormat.NDJSON)) {
+            return null;
+        }
+        return exportAsText(user, ExportFormat.NDJSON, acceptEncoding);
+    }
+
+    @PostMapping("/jobs")
+    public String createJob(@AuthenticationPrincipal User user,
+                            @RequestParam(defaultValue = "xlsx") String format,
+                            RedirectAttributes redirectAttributes) {
+        try {
+            exportJobService.createJob(user, ExportFormat.fromExtension(format));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // Неизвестный формат или превышен лимит активных выгрузок
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/export/jobs";
+    }
+
+    @GetMapping("/jobs")
+    public String listJobs(@AuthenticationPrincipal User user, Model model) {
+        List<ExportJob> jobs = exportJobService.getUserJobs(user);
+        model.addAttribute("jobs", jobs);
+        model.addAttribute("hasActive", jobs.stream().anyMatch(job -> job.status().isActive()));
+        return "export_jobs";
+    }
+
+    /**
+     * Скачивание результата с поддержкой Range для докачки. Если If-Range не совпадает с текущей версией файла,
+     * диапазон игнорируется и файл отдаётся целиком. Если хранилище выдаёт прямые ссылки,
+     * клиент перенаправляется в него, и Range обрабатывает само хранилище.
+     */
+    @GetMapping("/jobs/{id}/download")
+    public ResponseEntity<StreamingResponseBody> downloadJob(@PathVariable Long id,
+                                                             @AuthenticationPrincipal User user,
+                                                             @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+                                                             @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange)
+            throws IOException {
+        ExportJob job = exportJobService.getUserJob(id, user);
+        Optional<URI> downloadUrl = exportJobService.getResultUrl(job);
+        if (downloadUrl.isPresent()) {
+            // Ссылка подписана на ограниченный срок, поэтому сам редирект не кешируется
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(downloadUrl.get())
+                    .cacheControl(CacheControl.noStore().cachePrivate())
+                    .build();
+        }
+        LocalFile file = exportJobService.getResult(job);
+        long length = file.size();
+        String etag = "\"export-" + job.id() + "-" + length + "\"";
+        long lastModified = job.finishedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(job.format().getContentType()));
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename("notes-" + job.id() + "." + job.format().getExtension())
+                .build());
+        headers.setETag(etag);
+        headers.setLastModified(lastModified);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        HttpStatus status = HttpStatus.OK;
+        long start = 0;
+        long end = length - 1;
+        Optional<HttpRange> requested = range != null && HttpRanges.ifRangeMatches(ifRange, etag, lastModified)
+                ? HttpRanges.single(range) : Optional.empty();
+        if (requested.isPresent()) {
+            try {
+                start = requested.get().getRangeStart(length);
+                end = requested.get().getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                start = length;
+            }
+            if (start > end || start >= length) {
+                file.close();
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build();
+            }
+            status = HttpStatus.PARTIAL_CONTENT;
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        headers.setContentLength(end - start + 1);
+        return ResponseEntity.status(status).headers(headers).body(transfer(file, start, end - start + 1));
+    }
+
+    // Файл открыт до возврата из метода, поэтому вытеснение копии из кеша во время отдачи её не прерывает
+    private static StreamingResponseBody transfer(LocalFile file, long start, long count) {
+        return out -> {
+            try (file) {
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = start;
+                long end = start + count;
+                while (position < end) {
+                    position += file.channel().transferTo(position, end - position, target);
+                }
+            }
+        };
+    }
+
+    // Повторная выгрузка без изменений заметок не читает их из базы
+    private boolean notModified(ServletWebRequest request, User user, ExportFormat format) {
+        return NotesETags.checkNotModified(request, user, noteService.getNotesVersion(user),
+                "export-" + format.getExtension());
+    }
+
+    // Выгрузка пишется вне потока запроса; сжатие включается, если клиент принимает gzip
+    private ResponseEntity<StreamingResponseBody> exportAsText(User user, ExportFormat format, String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType(MediaType.parseMediaType(format.getContentType()),
+                StandardCharsets.UTF_8));
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename("notes." + format.getExtension())
+                .build());
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            headers.add(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        StreamingResponseBody body = out -> exportService.exportNotes(user.getId(), format,
+                gzip ? new GZIPOutputStream(out, GZIP_BUFFER_SIZE) : out, rows -> { });
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+}
@@ -0,0 +1,48 @@
+package com.notesystem.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Общие правила обработки условных запросов диапазонов.
+ */
+final class HttpRanges {
+
+    private HttpRanges() {
+    }
+
+    /**
+     * Разбирает Range с одним диапазоном. Неразборчивый заголовок и несколько диапазонов игнорируются,
+     * как требует RFC 9110, и представление отдаётся целиком.
+     */
+    static Optional<HttpRange> single(String range) {
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(range);
+            return ranges.size() == 1 ? Optional.of(ranges.get(0)) : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Проверяет If-Range: диапазон отдаётся, только если представление не изменилось.
+     * Сравнение ETag строгое, дата сравнивается с точностью до секунды.
+     */
+    static boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            HttpHeaders parsed = new HttpHeaders();
+            parsed.set(HttpHeaders.IF_RANGE, ifRange);
+            return parsed.getFirstDate(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
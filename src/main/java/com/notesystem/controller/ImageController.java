@@ -0,0 +1,169 @@
+package com.notesystem.controller;
+
+import com.notesystem.model.User;
+import com.notesystem.service.FileStorageService;
+import com.notesystem.service.LocalFile;
+import com.notesystem.service.NoteService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Контроллер изображений заметок.
+ * Отдаёт файл только владельцу заметки, поддерживает условные запросы и диапазоны
+ * и передаёт содержимое через sendfile контейнера или FileChannel.transferTo.
+ * Если объектное хранилище выдаёт прямые ссылки, клиент перенаправляется к нему.
+ */
+@Controller
+@RequestMapping("/images")
+public class ImageController {
+
+    // Атрибуты запроса, через которые Tomcat отправляет файл средствами ОС после выхода из обработчика
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // Маленькие файлы быстрее записать сразу, как делает DefaultServlet
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    // Имя из хеша содержимого никогда не указывает на другие данные
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{64}(_\\d+)?(\\.[a-z0-9]+)?");
+    private static final String CACHE_IMMUTABLE = "private, max-age=31536000, immutable";
+    private static final String CACHE_REVALIDATE = "private, no-cache";
+
+    private final NoteService noteService;
+    private final FileStorageService fileStorageService;
+
+    public ImageController(NoteService noteService, FileStorageService fileStorageService) {
+        this.noteService = noteService;
+        this.fileStorageService = fileStorageService;
+    }
+
+    @GetMapping("/{first}/{second}/{fileName:.+}")
+    public void sharded(@PathVariable String first,
+                        @PathVariable String second,
+                        @PathVariable String fileName,
+                        @AuthenticationPrincipal User user,
+                        @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+                        @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+                        HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
+        serve(first + "/" + second + "/" + fileName, user, range, ifRange, request, response);
+    }
+
+    // Файлы, загруженные до перехода на хранение по хешу, лежат в корне каталога
+    @GetMapping("/{fileName:.+}")
+    public void legacy(@PathVariable String fileName,
+                       @AuthenticationPrincipal User user,
+                       @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+                       @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+                       HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+        serve(fileName, user, range, ifRange, request, response);
+    }
+
+    private void serve(String imagePath, User user, String range, String ifRange,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Чужое и отсутствующее изображение неразличимы для клиента
+        if (!noteService.isImageOfUser(user, imagePath)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Optional<URI> downloadUrl = fileStorageService.imageDownloadUrl(imagePath);
+        if (downloadUrl.isPresent()) {
+            // Ссылка подписана на ограниченный срок, поэтому сам редирект не кешируется
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-store");
+            response.sendRedirect(downloadUrl.get().toString());
+            return;
+        }
+        Optional<LocalFile> localFile;
+        try {
+            localFile = fileStorageService.imageFile(imagePath);
+        } catch (IllegalArgumentException e) {
+            localFile = Optional.empty();
+        }
+        if (localFile.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        try (LocalFile file = localFile.get()) {
+            serveFile(file, range, ifRange, request, response);
+        }
+    }
+
+    private void serveFile(LocalFile file, String range, String ifRange,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long length = file.size();
+        long lastModified = file.lastModified();
+        String fileName = file.path().getFileName().toString();
+        boolean immutable = CONTENT_ADDRESSED.matcher(fileName).matches();
+        String etag = "\"" + (immutable ? fileName : fileName + "-" + length + "-" + lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? CACHE_IMMUTABLE : CACHE_REVALIDATE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+        response.setContentType(MediaTypeFactory.getMediaType(fileName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+
+        long start = 0;
+        long end = length - 1;
+        Optional<HttpRange> requested = range != null && HttpRanges.ifRangeMatches(ifRange, etag, lastModified)
+                ? HttpRanges.single(range) : Optional.empty();
+        if (requested.isPresent()) {
+            try {
+                start = requested.get().getRangeStart(length);
+                end = requested.get().getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                start = length;
+            }
+            if (start > end || start >= length) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        send(file, start, end - start + 1, request, response);
+    }
+
+    // Контейнер открывает файл для sendfile заново уже после возврата, поэтому копии из кеша,
+    // которые могут быть вытеснены к этому моменту, отдаются через уже открытый канал
+    private static void send(LocalFile file, long start, long count, HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        response.setContentLengthLong(count);
+        if (!file.evictable() && count >= SENDFILE_MIN_SIZE
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.path().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+        long position = start;
+        long end = start + count;
+        while (position < end) {
+            position += file.channel().transferTo(position, end - position, out);
+        }
+    }
+}
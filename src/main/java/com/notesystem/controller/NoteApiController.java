@@ -0,0 +1,195 @@
+package com.notesystem.controller;
+
+import com.notesystem.dto.AuthPrincipal;
+import com.notesystem.dto.NoteField;
+import com.notesystem.dto.NoteOperation;
+import com.notesystem.dto.NoteOperationResult;
+import com.notesystem.dto.NotePage;
+import com.notesystem.dto.NoteRequest;
+import com.notesystem.service.NoteApiService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * JSON API заметок для мобильных клиентов и синхронизации.
+ * Ответы на чтение несут ETag, построенный из версий заметок, и на повторный запрос
+ * без изменений возвращается 304 без тела. Изменения принимают версию в If-Match.
+ */
+@RestController
+@RequestMapping("/api/notes")
+public class NoteApiController {
+
+    private static final String CACHE_REVALIDATE = "private, no-cache";
+    // Не совпадает ни с одной версией: If-Match с чужим или нераспознанным ETag всегда даёт 412
+    private static final long VERSION_MISMATCH = -1L;
+
+    private final NoteApiService noteApiService;
+
+    public NoteApiController(NoteApiService noteApiService) {
+        this.noteApiService = noteApiService;
+    }
+
+    @GetMapping
+    public ResponseEntity<NotePage> list(@AuthenticationPrincipal AuthPrincipal principal,
+                                         @RequestParam(required = false) String fields,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit,
+                                         WebRequest request) {
+        Set<NoteField> selected = NoteField.parse(fields);
+        NotePage page = noteApiService.list(principal.id(), selected, cursor, limit);
+        String etag = pageETag(selected, page);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, CACHE_REVALIDATE)
+                .eTag(etag)
+                .body(page);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> get(@AuthenticationPrincipal AuthPrincipal principal,
+                                                   @PathVariable Long id,
+                                                   @RequestParam(required = false) String fields,
+                                                   WebRequest request) {
+        Optional<Map<String, Object>> note = noteApiService.get(principal.id(), id, NoteField.parse(fields));
+        if (note.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = noteETag(id, (Long) note.get().get(NoteField.VERSION.getName()));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, CACHE_REVALIDATE)
+                .eTag(etag)
+                .body(note.get());
+    }
+
+    @PostMapping
+    public ResponseEntity<NoteOperationResult> create(@AuthenticationPrincipal AuthPrincipal principal,
+                                                      @RequestBody NoteRequest note) {
+        return respond(noteApiService.apply(principal.id(),
+                new NoteOperation(NoteOperation.Type.CREATE, null, null, note)));
+    }
+
+    /**
+     * Заменяет заметку целиком: поля, не переданные в теле, включая reminder, сбрасываются.
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<NoteOperationResult> update(@AuthenticationPrincipal AuthPrincipal principal,
+                                                      @PathVariable Long id,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                      String ifMatch,
+                                                      @RequestBody NoteRequest note) {
+        return respond(noteApiService.apply(principal.id(),
+                new NoteOperation(NoteOperation.Type.UPDATE, id, expectedVersion(id, ifMatch), note)));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<NoteOperationResult> delete(@AuthenticationPrincipal AuthPrincipal principal,
+                                                      @PathVariable Long id,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                      String ifMatch) {
+        return respond(noteApiService.apply(principal.id(),
+                new NoteOperation(NoteOperation.Type.DELETE, id, expectedVersion(id, ifMatch), null)));
+    }
+
+    /**
+     * Применяет операции в одной транзакции. Ответ — 200 с результатом каждой операции,
+     * даже если часть из них не выполнена.
+     */
+    @PostMapping("/batch")
+    public List<NoteOperationResult> batch(@AuthenticationPrincipal AuthPrincipal principal,
+                                           @RequestBody List<NoteOperation> operations) {
+        return noteApiService.batch(principal.id(), operations);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+
+    // Заметку изменили параллельно между проверкой версии и записью
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> conflict(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Заметка изменена параллельно"));
+    }
+
+    private static ResponseEntity<NoteOperationResult> respond(NoteOperationResult result) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(result.status());
+        if (result.isSuccessful() && result.version() != null) {
+            response.eTag(noteETag(result.id(), result.version()));
+        }
+        if (result.status() == HttpStatus.CREATED.value()) {
+            response.location(URI.create("/api/notes/" + result.id()));
+        }
+        if (result.status() == HttpStatus.NO_CONTENT.value()) {
+            return response.build();
+        }
+        return response.body(result);
+    }
+
+    // Представление заметки меняется только вместе с версией, поэтому ETag не зависит от выбранных полей:
+    // кеш клиента хранит ответы на разные наборы полей по разным URL
+    private static String noteETag(Long id, Long version) {
+        return "\"" + id + "." + version + "\"";
+    }
+
+    private static Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        String prefix = "\"" + id + ".";
+        if (value.startsWith(prefix) && value.endsWith("\"") && value.length() > prefix.length() + 1) {
+            try {
+                return Long.parseLong(value.substring(prefix.length(), value.length() - 1));
+            } catch (NumberFormatException e) {
+                return VERSION_MISMATCH;
+            }
+        }
+        return VERSION_MISMATCH;
+    }
+
+    // Страница одинакова, пока совпадают набор полей, заметки с их версиями и курсор следующей страницы
+    private static String pageETag(Set<NoteField> fields, NotePage page) {
+        StringBuilder key = new StringBuilder();
+        fields.forEach(field -> key.append(field.getName()).append(','));
+        for (Map<String, Object> item : page.items()) {
+            key.append(item.get(NoteField.ID.getName())).append('.')
+                    .append(item.get(NoteField.VERSION.getName())).append(';');
+        }
+        key.append(page.nextCursor());
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
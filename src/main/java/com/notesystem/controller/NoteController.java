@@ -1,18 +1,27 @@
 package com.notesystem.controller;
 
+import com.notesystem.dto.CursorPage;
+import com.notesystem.dto.NoteCursor;
+import com.notesystem.dto.NoteListItem;
+import com.notesystem.dto.NoteSort;
+import com.notesystem.dto.NoteSuggestion;
 import com.notesystem.model.Note;
 import com.notesystem.model.User;
+import com.notesystem.service.NoteImportService;
 import com.notesystem.service.NoteService;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Контроллер для управления заметками пользователей.
@@ -24,9 +33,15 @@ public class NoteController {
 
     private static final int DEFAULT_PAGE_SIZE = 10;
     private final NoteService noteService;
+    private final NoteImportService noteImportService;
+    private final int suggestLimit;
 
-    public NoteController(NoteService noteService) {
+    public NoteController(NoteService noteService,
+                          NoteImportService noteImportService,
+                          @Value("${notes.search.suggest-limit}") int suggestLimit) {
         this.noteService = noteService;
+        this.noteImportService = noteImportService;
+        this.suggestLimit = suggestLimit;
     }
 
     @GetMapping
@@ -35,7 +50,9 @@ public class NoteController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "createdDate") String sort,
             @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(required = false) String cursor,
             @RequestParam(required = false) String query,
+            ServletWebRequest request,
             Model model) {
 
         // Добавим явную проверку на null
@@ -43,22 +60,63 @@ public class NoteController {
             return "redirect:/login";
         }
 
-        Pageable pageable = PageRequest.of(page, DEFAULT_PAGE_SIZE,
-                Sort.by(Sort.Direction.fromString(direction), sort));
+        // Если с прошлого показа заметки не менялись, страница не запрашивается и не отрисовывается
+        if (NotesETags.checkNotModified(request, user, noteService.getNotesVersion(user), "notes")) {
+            return null;
+        }
 
-        Page<Note> notePage = noteService.getUserNotes(user, query, pageable);
+        // Сортировка только по разрешённым ключам, неизвестные значения заменяются значениями по умолчанию
+        NoteSort noteSort = NoteSort.fromParam(sort);
+        Sort.Direction sortDirection = Sort.Direction.fromOptionalString(direction).orElse(Sort.Direction.DESC);
+
+        if (query != null && !query.isBlank()) {
+            // Результаты поиска упорядочены по релевантности, общее число страниц не считается
+            Slice<NoteListItem> hits = noteService.searchNotes(user, query,
+                    PageRequest.of(Math.max(page, 0), DEFAULT_PAGE_SIZE));
+            model.addAttribute("notes", hits.getContent());
+            model.addAttribute("hasNext", hits.hasNext());
+            model.addAttribute("currentPage", Math.max(page, 0));
+        } else {
+            // Курсор содержит ключ граничной строки и направление перехода
+            CursorPage<NoteListItem> notePage = noteService.getUserNotes(user, noteSort, sortDirection,
+                    NoteCursor.decode(cursor, noteSort, sortDirection), DEFAULT_PAGE_SIZE);
+            model.addAttribute("notes", notePage.items());
+            model.addAttribute("nextCursor", notePage.nextCursor());
+            model.addAttribute("prevCursor", notePage.prevCursor());
+        }
 
-        model.addAttribute("notes", notePage.getContent());
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", notePage.getTotalPages());
-        model.addAttribute("sort", sort);
-        model.addAttribute("direction", direction);
+        model.addAttribute("sort", noteSort.getParam());
+        model.addAttribute("direction", sortDirection.name().toLowerCase());
         model.addAttribute("query", query);
         model.addAttribute("currentUser", user); // Убедимся, что передаем пользователя
 
         return "notes";
     }
 
+    @GetMapping("/suggest")
+    @ResponseBody
+    public List<NoteSuggestion> suggest(@AuthenticationPrincipal User user,
+                                        @RequestParam(name = "q", defaultValue = "") String query) {
+        return noteService.suggestNotes(user, query, suggestLimit);
+    }
+
+    @GetMapping("/import")
+    public String showImportForm() {
+        return "import_notes";
+    }
+
+    @PostMapping("/import")
+    public String importNotes(@AuthenticationPrincipal User user,
+                              @RequestParam MultipartFile file,
+                              Model model) throws IOException {
+        try {
+            model.addAttribute("result", noteImportService.importNotes(user, file));
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("error", e.getMessage());
+        }
+        return "import_notes";
+    }
+
     @GetMapping("/add")
     public String showAddForm(Model model) {
         model.addAttribute("note", new Note());
@@ -72,14 +130,18 @@ public class NoteController {
             @RequestParam(required = false) MultipartFile image,
             @RequestParam(required = false) LocalDateTime reminder) {
 
-        noteService.createNote(note, user, image, reminder);
+        noteService.createNote(note, user, noteService.stageImage(image), reminder);
         return "redirect:/notes";
     }
 
     @GetMapping("/{id}")
     public String viewNote(@PathVariable Long id,
                            @AuthenticationPrincipal User user,
+                           ServletWebRequest request,
                            Model model) {
+        if (NotesETags.checkNotModified(request, user, noteService.getNotesVersion(user), "note-" + id)) {
+            return null;
+        }
         Note note = noteService.getNoteByIdAndUser(id, user);
         model.addAttribute("note", note);
         return "note";
@@ -96,23 +158,42 @@ public class NoteController {
 
     @PostMapping("/edit/{id}")
     public String updateNote(@PathVariable Long id,
+                             @AuthenticationPrincipal User user,
                              @ModelAttribute Note note,
                              @RequestParam(required = false) MultipartFile image,
                              @RequestParam(required = false) LocalDateTime reminder) {
 
-        noteService.updateNote(id, note, image, reminder);
+        noteService.updateNote(id, user, note, noteService.stageImage(image), reminder);
         return "redirect:/notes";
     }
 
     @PostMapping("/delete/{id}")
-    public String deleteNote(@PathVariable Long id) {
-        noteService.deleteNote(id);
+    public String deleteNote(@PathVariable Long id, @AuthenticationPrincipal User user) {
+        noteService.deleteNote(id, user);
         return "redirect:/notes";
     }
 
     @PostMapping("/toggle/{id}")
-    public String toggleCompletion(@PathVariable Long id) {
-        noteService.toggleNoteCompletion(id);
+    public String toggleCompletion(@PathVariable Long id, @AuthenticationPrincipal User user) {
+        noteService.toggleNoteCompletion(id, user);
+        return "redirect:/notes";
+    }
+
+    /**
+     * Действие над отмеченными в списке заметками, выполняется одним запросом к базе.
+     */
+    @PostMapping("/bulk")
+    public String bulkAction(@AuthenticationPrincipal User user,
+                             @RequestParam String action,
+                             @RequestParam(name = "ids", required = false) List<Long> ids) {
+        List<Long> selected = ids != null ? ids : List.of();
+        switch (action) {
+            case "complete" -> noteService.setNotesCompleted(user, selected, true);
+            case "reopen" -> noteService.setNotesCompleted(user, selected, false);
+            case "clear-reminders" -> noteService.clearReminders(user, selected);
+            case "delete" -> noteService.deleteNotes(user, selected);
+            default -> throw new IllegalArgumentException("Неизвестное действие: " + action);
+        }
         return "redirect:/notes";
     }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.notesystem.controller;
+
+import com.notesystem.model.User;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Слабые ETag страниц и выгрузок заметок по счётчику изменений заметок пользователя.
+ * Представление собирается заново, но с теми же данными оно равнозначно прежнему, поэтому ETag слабый.
+ */
+final class NotesETags {
+
+    // Разметка может измениться с новой версией приложения, поэтому ETag прежнего запуска не принимается
+    private static final String STARTED = Long.toString(System.currentTimeMillis(), 36);
+    private static final String CACHE_REVALIDATE = "private, no-cache";
+
+    private NotesETags() {
+    }
+
+    /**
+     * Выставляет ETag и требование перепроверки и возвращает true, если клиенту можно ответить 304.
+     *
+     * @param variant вид представления, например страница или формат выгрузки
+     */
+    static boolean checkNotModified(ServletWebRequest request, User user, long notesVersion, String variant) {
+        // Роль влияет на разметку страниц: администратор видит ссылку на панель
+        String etag = "W/\"" + variant + "-" + user.getId() + "-" + notesVersion + "-"
+                + user.getRole().name().toLowerCase() + "-" + STARTED + "\"";
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_REVALIDATE);
+        }
+        return request.checkNotModified(etag);
+    }
+}
@@ -0,0 +1,17 @@
+package com.notesystem.dto;
+
+import com.notesystem.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Пользователь запроса API, восстановленный из access-токена без обращения к базе.
+ */
+public record AuthPrincipal(Long id, String username, User.Role role, boolean active) {
+
+    public Collection<? extends GrantedAuthority> authorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+}
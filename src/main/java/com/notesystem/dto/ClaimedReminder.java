@@ -0,0 +1,11 @@
+package com.notesystem.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Напоминание, захваченное текущим экземпляром приложения для отправки.
+ */
+public record ClaimedReminder(Long noteId, Long userId, String title,
+                              LocalDate createdDate, LocalDateTime reminder) {
+}
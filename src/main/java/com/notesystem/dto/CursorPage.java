@@ -0,0 +1,9 @@
+package com.notesystem.dto;
+
+import java.util.List;
+
+/**
+ * Страница keyset-пагинации. Курсоры равны null, если в соответствующую сторону записей нет.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor, String prevCursor) {
+}
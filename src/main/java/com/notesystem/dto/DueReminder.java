@@ -0,0 +1,9 @@
+package com.notesystem.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Облегчённая выборка напоминания для загрузки в колесо таймеров.
+ */
+public record DueReminder(Long noteId, LocalDateTime reminder) {
+}
@@ -0,0 +1,106 @@
+package com.notesystem.dto;
+
+import java.time.format.DateTimeFormatter;
+import java.util.OptionalDouble;
+
+/**
+ * Столбцы экспорта заметок с заголовками и форматированием значений.
+ * Общие для всех форматов выгрузки. Значения дописываются в переданный буфер,
+ * чтобы построчная запись не создавала промежуточных строк.
+ */
+public enum ExportColumn {
+    ID("ID", "id") {
+        @Override
+        public void appendTo(NoteExportRow row, StringBuilder out) {
+            out.append(row.getId());
+        }
+
+        @Override
+        public OptionalDouble numericValue(NoteExportRow row) {
+            return OptionalDouble.of(row.getId());
+        }
+    },
+    TITLE("Заголовок", "title") {
+        @Override
+        public void appendTo(NoteExportRow row, StringBuilder out) {
+            out.append(row.getTitle());
+        }
+    },
+    CONTENT("Содержание", "content") {
+        @Override
+        public void appendTo(NoteExportRow row, StringBuilder out) {
+            if (row.getContent() != null) {
+                out.append(row.getContent());
+            }
+        }
+    },
+    CREATED_DATE("Дата создания", "createdDate") {
+        @Override
+        public void appendTo(NoteExportRow row, StringBuilder out) {
+            Formats.DATE.formatTo(row.getCreatedDate(), out);
+        }
+    },
+    STATUS("Статус", "status") {
+        @Override
+        public void appendTo(NoteExportRow row, StringBuilder out) {
+            out.append(row.isCompleted() ? "Завершено" : "В процессе");
+        }
+    },
+    REMINDER("Напоминание", "reminder") {
+        @Override
+        public void appendTo(NoteExportRow row, StringBuilder out) {
+            if (row.getReminder() != null) {
+                Formats.DATETIME.formatTo(row.getReminder(), out);
+            }
+        }
+    },
+    IMAGE("Изображение", "image") {
+        @Override
+        public void appendTo(NoteExportRow row, StringBuilder out) {
+            if (row.getImagePath() != null) {
+                out.append(row.getImagePath());
+            }
+        }
+    };
+
+    private final String header;
+    private final String field;
+
+    ExportColumn(String header, String field) {
+        this.header = header;
+        this.field = field;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * Имя поля в машиночитаемых форматах.
+     */
+    public String getField() {
+        return field;
+    }
+
+    public abstract void appendTo(NoteExportRow row, StringBuilder out);
+
+    /**
+     * Числовое значение столбца. Если оно есть, значение записывается числом, а не строкой:
+     * в JSON и в ячейку XLSX. У текстовых столбцов значение пустое.
+     */
+    public OptionalDouble numericValue(NoteExportRow row) {
+        return OptionalDouble.empty();
+    }
+
+    public String format(NoteExportRow row) {
+        StringBuilder out = new StringBuilder();
+        appendTo(row, out);
+        return out.toString();
+    }
+
+    // Константы в отдельном классе: элементы перечисления инициализируются раньше его статических полей
+    private static final class Formats {
+        private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        private static final DateTimeFormatter DATETIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    }
+}
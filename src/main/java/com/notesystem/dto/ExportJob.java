@@ -0,0 +1,65 @@
+package com.notesystem.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Фоновое задание выгрузки заметок.
+ */
+public record ExportJob(Long id, Long userId, ExportFormat format, Status status, long rowsWritten, Long totalRows,
+                        String filePath, Long fileSize, String error, LocalDateTime createdAt,
+                        LocalDateTime finishedAt) {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED;
+
+        public boolean isActive() {
+            return this == QUEUED || this == RUNNING;
+        }
+    }
+
+    /**
+     * Процент выполнения; до подсчёта общего числа строк равен нулю.
+     */
+    public int getProgressPercent() {
+        if (status == Status.DONE) {
+            return 100;
+        }
+        if (totalRows == null || totalRows == 0) {
+            return 0;
+        }
+        return (int) Math.min(99, rowsWritten * 100 / totalRows);
+    }
+
+    // Геттеры в стиле JavaBean для шаблонов FreeMarker
+    public Long getId() {
+        return id;
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+}
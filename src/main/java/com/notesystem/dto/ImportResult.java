@@ -0,0 +1,38 @@
+package com.notesystem.dto;
+
+import java.util.List;
+
+/**
+ * Итог импорта заметок.
+ *
+ * @param errors ошибки первых отклонённых строк; общее число отклонённых строк — в failed
+ */
+public record ImportResult(long imported, long failed, List<RowError> errors) {
+
+    /**
+     * Ошибка строки файла; строки нумеруются с единицы, включая заголовок.
+     */
+    public record RowError(long row, String message) {
+
+        public long getRow() {
+            return row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    // Геттеры в стиле JavaBean для шаблонов FreeMarker
+    public long getImported() {
+        return imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,11 @@
+package com.notesystem.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Проверенная строка импорта, готовая к пакетной вставке.
+ */
+public record ImportedNote(String title, String content, LocalDate createdDate, boolean completed,
+                           LocalDateTime reminder) {
+}
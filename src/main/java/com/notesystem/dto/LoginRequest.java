@@ -0,0 +1,9 @@
+package com.notesystem.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Учётные данные для получения токенов API.
+ */
+public record LoginRequest(@NotBlank String username, @NotBlank String password) {
+}
@@ -0,0 +1,81 @@
+package com.notesystem.dto;
+
+import org.springframework.data.domain.Sort;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Позиция в списке заметок для keyset-пагинации: значения ключа сортировки граничной строки.
+ * В URL передаётся в виде непрозрачной строки base64url.
+ *
+ * @param backward true, если нужна страница перед граничной строкой
+ */
+public record NoteCursor(NoteSort sort, Sort.Direction direction, boolean backward, List<Object> keys) {
+
+    private static final int FORMAT_VERSION = 1;
+
+    public static NoteCursor after(NoteSort sort, Sort.Direction direction, NoteListItem item) {
+        return new NoteCursor(sort, direction, false, extract(sort, item));
+    }
+
+    public static NoteCursor before(NoteSort sort, Sort.Direction direction, NoteListItem item) {
+        return new NoteCursor(sort, direction, true, extract(sort, item));
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(sort.name());
+            out.writeUTF(direction.name());
+            out.writeBoolean(backward);
+            for (Object key : keys) {
+                out.writeUTF(key.toString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Разбирает курсор. Повреждённый курсор или курсор от другой сортировки
+     * даёт null, и список показывается с начала.
+     */
+    public static NoteCursor decode(String value, NoteSort sort, Sort.Direction direction) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(Base64.getUrlDecoder().decode(value)))) {
+            if (in.readByte() != FORMAT_VERSION
+                    || !in.readUTF().equals(sort.name())
+                    || !in.readUTF().equals(direction.name())) {
+                return null;
+            }
+            boolean backward = in.readBoolean();
+            List<Object> keys = new ArrayList<>(sort.getKeys().size());
+            for (NoteSort.Key key : sort.getKeys()) {
+                keys.add(key.parse(in.readUTF()));
+            }
+            return new NoteCursor(sort, direction, backward, keys);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static List<Object> extract(NoteSort sort, NoteListItem item) {
+        List<Object> keys = new ArrayList<>(sort.getKeys().size());
+        for (NoteSort.Key key : sort.getKeys()) {
+            keys.add(key.extract(item));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,58 @@
+package com.notesystem.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Строка экспорта. Обработчик не должен сохранять ссылку на неё после обработки строки:
+ * выгрузка держит в памяти только текущую порцию.
+ */
+public class NoteExportRow {
+
+    private long id;
+    private String title;
+    private String content;
+    private LocalDate createdDate;
+    private boolean completed;
+    private LocalDateTime reminder;
+    private String imagePath;
+
+    public void set(long id, String title, String content, LocalDate createdDate, boolean completed,
+                    LocalDateTime reminder, String imagePath) {
+        this.id = id;
+        this.title = title;
+        this.content = content;
+        this.createdDate = createdDate;
+        this.completed = completed;
+        this.reminder = reminder;
+        this.imagePath = imagePath;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public LocalDate getCreatedDate() {
+        return createdDate;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public LocalDateTime getReminder() {
+        return reminder;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+}
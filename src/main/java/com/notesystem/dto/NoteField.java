@@ -0,0 +1,113 @@
+package com.notesystem.dto;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Поля заметки в JSON API. Клиент выбирает нужные через параметр fields,
+ * и из базы читаются только соответствующие столбцы.
+ */
+public enum NoteField {
+    ID("id", "n.id") {
+        @Override
+        public Object read(ResultSet rs) throws SQLException {
+            return rs.getLong("id");
+        }
+    },
+    VERSION("version", "n.version") {
+        @Override
+        public Object read(ResultSet rs) throws SQLException {
+            return rs.getLong("version");
+        }
+    },
+    TITLE("title", "n.title") {
+        @Override
+        public Object read(ResultSet rs) throws SQLException {
+            return rs.getString("title");
+        }
+    },
+    CONTENT("content", "n.content") {
+        @Override
+        public Object read(ResultSet rs) throws SQLException {
+            return rs.getString("content");
+        }
+    },
+    CREATED_DATE("createdDate", "n.created_date") {
+        @Override
+        public Object read(ResultSet rs) throws SQLException {
+            return rs.getDate("created_date").toLocalDate();
+        }
+    },
+    COMPLETED("completed", "n.completed") {
+        @Override
+        public Object read(ResultSet rs) throws SQLException {
+            return rs.getBoolean("completed");
+        }
+    },
+    REMINDER("reminder", "n.reminder") {
+        @Override
+        public Object read(ResultSet rs) throws SQLException {
+            Timestamp reminder = rs.getTimestamp("reminder");
+            return reminder != null ? reminder.toLocalDateTime() : null;
+        }
+    },
+    IMAGE_PATH("imagePath", "n.image_path") {
+        @Override
+        public Object read(ResultSet rs) throws SQLException {
+            return rs.getString("image_path");
+        }
+    };
+
+    private static final Map<String, NoteField> BY_NAME = Arrays.stream(values())
+            .collect(Collectors.toMap(NoteField::getName, Function.identity()));
+
+    private final String name;
+    private final String column;
+
+    NoteField(String name, String column) {
+        this.name = name;
+        this.column = column;
+    }
+
+    /**
+     * Имя поля в JSON и в параметре fields.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Выражение столбца в запросе к таблице notes с псевдонимом n.
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    public abstract Object read(ResultSet rs) throws SQLException;
+
+    /**
+     * Разбирает список полей через запятую; пустой список означает все поля.
+     * id и version возвращаются всегда: по ним строятся курсор и ETag.
+     */
+    public static Set<NoteField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return EnumSet.allOf(NoteField.class);
+        }
+        Set<NoteField> result = EnumSet.of(ID, VERSION);
+        for (String name : fields.split(",")) {
+            NoteField field = BY_NAME.get(name.trim());
+            if (field == null) {
+                throw new IllegalArgumentException("Неизвестное поле: " + name.trim());
+            }
+            result.add(field);
+        }
+        return result;
+    }
+}
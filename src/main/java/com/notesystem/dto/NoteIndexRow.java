@@ -0,0 +1,7 @@
+package com.notesystem.dto;
+
+/**
+ * Поля заметки, необходимые для построения поискового индекса подсказок.
+ */
+public record NoteIndexRow(Long id, String title, String content, boolean completed) {
+}
@@ -0,0 +1,46 @@
+package com.notesystem.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Облегчённое представление заметки для списка и результатов поиска.
+ * Вместо полного содержания несёт короткий фрагмент, вычисленный в SQL;
+ * в результатах поиска найденные слова фрагмента обрамлены маркерами [[ и ]].
+ */
+public record NoteListItem(Long id, String title, String snippet, LocalDate createdDate, boolean completed,
+                           LocalDateTime reminder, String imagePath, String thumbnailPath) {
+
+    // Геттеры в стиле JavaBean для шаблонов FreeMarker
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public LocalDate getCreatedDate() {
+        return createdDate;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public LocalDateTime getReminder() {
+        return reminder;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public String getThumbnailPath() {
+        return thumbnailPath;
+    }
+}
@@ -0,0 +1,19 @@
+package com.notesystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Операция пакетного запроса к API заметок.
+ *
+ * @param id      заметка для update и delete
+ * @param version ожидаемая версия заметки; null отключает проверку
+ * @param note    новые данные для create и update
+ */
+public record NoteOperation(Type op, Long id, Long version, NoteRequest note) {
+
+    public enum Type {
+        @JsonProperty("create") CREATE,
+        @JsonProperty("update") UPDATE,
+        @JsonProperty("delete") DELETE
+    }
+}
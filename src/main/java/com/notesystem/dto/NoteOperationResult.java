@@ -0,0 +1,42 @@
+package com.notesystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Результат одной операции над заметкой; status повторяет код HTTP, который вернул бы одиночный запрос.
+ *
+ * @param version версия заметки после операции
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record NoteOperationResult(int status, Long id, Long version, String error) {
+
+    public static NoteOperationResult created(Long id, Long version) {
+        return new NoteOperationResult(201, id, version, null);
+    }
+
+    public static NoteOperationResult updated(Long id, Long version) {
+        return new NoteOperationResult(200, id, version, null);
+    }
+
+    public static NoteOperationResult deleted(Long id) {
+        return new NoteOperationResult(204, id, null, null);
+    }
+
+    public static NoteOperationResult notFound(Long id) {
+        return new NoteOperationResult(404, id, null, "Заметка не найдена");
+    }
+
+    public static NoteOperationResult conflict(Long id, Long version) {
+        return new NoteOperationResult(412, id, version, "Заметка изменена: текущая версия " + version);
+    }
+
+    public static NoteOperationResult invalid(Long id, String error) {
+        return new NoteOperationResult(422, id, null, error);
+    }
+
+    @JsonIgnore
+    public boolean isSuccessful() {
+        return status < 300;
+    }
+}
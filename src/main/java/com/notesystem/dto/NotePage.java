@@ -0,0 +1,12 @@
+package com.notesystem.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Страница заметок JSON API с выбранными полями.
+ *
+ * @param nextCursor курсор следующей страницы или null, если это последняя
+ */
+public record NotePage(List<Map<String, Object>> items, String nextCursor) {
+}
@@ -0,0 +1,75 @@
+package com.notesystem.dto;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Допустимые варианты сортировки списка заметок.
+ * Каждый вариант задаёт ключ keyset-пагинации; идентификатор заметки всегда замыкает ключ,
+ * чтобы порядок был однозначным. Для каждого ключа есть составной индекс (user_id, ..., id).
+ */
+public enum NoteSort {
+    CREATED_DATE("createdDate", Key.CREATED_DATE, Key.ID),
+    TITLE("title", Key.TITLE, Key.ID),
+    STATUS("status", Key.COMPLETED, Key.CREATED_DATE, Key.ID);
+
+    private final String param;
+    private final List<Key> keys;
+
+    NoteSort(String param, Key... keys) {
+        this.param = param;
+        this.keys = List.of(keys);
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public List<Key> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Разбирает параметр запроса; неизвестные значения заменяются сортировкой по дате создания.
+     */
+    public static NoteSort fromParam(String param) {
+        return Arrays.stream(values())
+                .filter(sort -> sort.param.equals(param))
+                .findFirst()
+                .orElse(CREATED_DATE);
+    }
+
+    /**
+     * Столбец ключа сортировки с функциями извлечения и разбора значения курсора.
+     */
+    public enum Key {
+        ID("id", NoteListItem::getId, Long::valueOf),
+        TITLE("title", NoteListItem::getTitle, value -> value),
+        CREATED_DATE("created_date", NoteListItem::getCreatedDate, LocalDate::parse),
+        COMPLETED("completed", NoteListItem::isCompleted, Boolean::valueOf);
+
+        private final String column;
+        private final Function<NoteListItem, Object> extractor;
+        private final Function<String, Object> parser;
+
+        Key(String column, Function<NoteListItem, Object> extractor, Function<String, Object> parser) {
+            this.column = column;
+            this.extractor = extractor;
+            this.parser = parser;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public Object extract(NoteListItem item) {
+            return extractor.apply(item);
+        }
+
+        public Object parse(String value) {
+            return parser.apply(value);
+        }
+    }
+}
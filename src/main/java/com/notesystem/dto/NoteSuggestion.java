@@ -0,0 +1,7 @@
+package com.notesystem.dto;
+
+/**
+ * Подсказка поиска при вводе.
+ */
+public record NoteSuggestion(Long id, String title, boolean completed) {
+}
@@ -0,0 +1,9 @@
+package com.notesystem.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запись outbox, ожидающая публикации в Kafka.
+ */
+public record OutboxEvent(Long id, String topic, Long key, byte[] payload, LocalDateTime createdAt) {
+}
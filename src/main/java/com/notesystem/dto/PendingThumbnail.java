@@ -0,0 +1,7 @@
+package com.notesystem.dto;
+
+/**
+ * Изображение заметки, для которого ещё не построены уменьшенные копии.
+ */
+public record PendingThumbnail(Long noteId, String imagePath) {
+}
@@ -0,0 +1,9 @@
+package com.notesystem.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Запрос обмена или отзыва refresh-токена.
+ */
+public record RefreshRequest(@NotBlank String refreshToken) {
+}
@@ -0,0 +1,32 @@
+package com.notesystem.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Событие о напоминаниях, передаваемое через Kafka.
+ * Ключом сообщения служит идентификатор пользователя, чтобы сохранить порядок его событий.
+ * Событие о наступивших напоминаниях может объединять несколько заметок одного пользователя (дайджест).
+ */
+public record ReminderEvent(Type type, Long userId, List<Item> items) {
+
+    public enum Type {
+        /** Напоминание установлено или перенесено */
+        SCHEDULED,
+        /** Срок напоминания наступил */
+        DUE
+    }
+
+    public record Item(Long noteId, String title, LocalDateTime dueAt) {
+    }
+
+    public static ReminderEvent scheduled(Long noteId, Long userId, String title, LocalDateTime dueAt) {
+        return new ReminderEvent(Type.SCHEDULED, userId, List.of(new Item(noteId, title, dueAt)));
+    }
+
+    public static ReminderEvent digest(Long userId, List<ClaimedReminder> reminders) {
+        return new ReminderEvent(Type.DUE, userId, reminders.stream()
+                .map(reminder -> new Item(reminder.noteId(), reminder.title(), reminder.reminder()))
+                .toList());
+    }
+}
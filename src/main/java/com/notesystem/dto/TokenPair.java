@@ -0,0 +1,13 @@
+package com.notesystem.dto;
+
+/**
+ * Ответ на выдачу или обновление токенов API.
+ *
+ * @param expiresIn срок действия access-токена в секундах
+ */
+public record TokenPair(String accessToken, String refreshToken, String tokenType, long expiresIn) {
+
+    public static TokenPair bearer(String accessToken, String refreshToken, long expiresIn) {
+        return new TokenPair(accessToken, refreshToken, "Bearer", expiresIn);
+    }
+}
@@ -0,0 +1,9 @@
+package com.notesystem.dto;
+
+import java.time.Instant;
+
+/**
+ * Запись журнала отзыва access-токенов: по jti или по пользователю.
+ */
+public record TokenRevocation(String jti, Long userId, Instant revokedAt, Instant expiresAt) {
+}
@@ -16,8 +16,14 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 public class Note {
 
+    /**
+     * Размер блока идентификаторов последовательности notes_id_seq.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notes_id_seq")
+    @SequenceGenerator(name = "notes_id_seq", sequenceName = "notes_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -38,6 +44,16 @@ public class Note {
 
     private String imagePath;
 
+    // Уменьшенные копии изображения, строятся в фоне после загрузки
+    private String imageThumbSmall;
+
+    private String imageThumbLarge;
+
+    // Копии изображения не входят в версию: они появляются в фоне и не должны конфликтовать с правкой
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     public Note(String title, String content) {
         this.title = title;
         this.content = content;
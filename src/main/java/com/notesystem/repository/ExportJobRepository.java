@@ -0,0 +1,166 @@
+package com.notesystem.repository;
+
+import com.notesystem.dto.ExportFormat;
+import com.notesystem.dto.ExportJob;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий заданий выгрузки.
+ * Задания захватываются репликами через FOR UPDATE SKIP LOCKED, а число одновременно
+ * выполняющихся заданий в кластере ограничивается под advisory-блокировкой.
+ * В столбце owner хранится токен конкретного захвата, а не экземпляра: повторный захват задания
+ * той же репликой лишает прежний запуск права обновлять задание.
+ * Сроки отсчитываются от now() базы, которым записаны и сами отметки времени.
+ */
+@Repository
+public class ExportJobRepository {
+
+    // Ключ advisory-блокировки планирования заданий выгрузки
+    private static final long SCHEDULE_LOCK_KEY = 0x6578706F7274L;
+    private static final String COLUMNS = "id, user_id, format, status, rows_written, total_rows, file_path, "
+            + "file_size, error, created_at, finished_at";
+
+    private static final RowMapper<ExportJob> ROW_MAPPER = (rs, rowNum) -> {
+        long totalRows = rs.getLong("total_rows");
+        boolean totalUnknown = rs.wasNull();
+        long fileSize = rs.getLong("file_size");
+        boolean sizeUnknown = rs.wasNull();
+        Timestamp finishedAt = rs.getTimestamp("finished_at");
+        return new ExportJob(
+                rs.getLong("id"),
+                rs.getLong("user_id"),
+                ExportFormat.valueOf(rs.getString("format")),
+                ExportJob.Status.valueOf(rs.getString("status")),
+                rs.getLong("rows_written"),
+                totalUnknown ? null : totalRows,
+                rs.getString("file_path"),
+                sizeUnknown ? null : fileSize,
+                rs.getString("error"),
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                finishedAt != null ? finishedAt.toLocalDateTime() : null);
+    };
+
+    private static final String CLAIM_SQL = """
+            UPDATE export_jobs
+            SET status = 'RUNNING', owner = ?, attempts = attempts + 1, rows_written = 0,
+                started_at = now(), heartbeat_at = now()
+            WHERE id = (
+                SELECT id FROM export_jobs
+                WHERE status = 'QUEUED'
+                ORDER BY id
+                LIMIT 1
+                FOR UPDATE SKIP LOCKED)
+            RETURNING %s
+            """.formatted(COLUMNS);
+
+    // Задания реплики, переставшей обновлять heartbeat, возвращаются в очередь или завершаются ошибкой
+    private static final String REQUEUE_STALE_SQL = """
+            UPDATE export_jobs
+            SET status = CASE WHEN attempts >= ? THEN 'FAILED' ELSE 'QUEUED' END,
+                error = CASE WHEN attempts >= ? THEN 'Превышено число попыток' ELSE NULL END,
+                finished_at = CASE WHEN attempts >= ? THEN now() ELSE NULL END,
+                owner = NULL
+            WHERE status = 'RUNNING' AND heartbeat_at < now() - ? * interval '1 millisecond'
+            """;
+
+    // Удаляет завершённые задания старше срока хранения и сверх лимита на пользователя
+    private static final String DELETE_EXPIRED_SQL = """
+            WITH ranked AS (
+                SELECT id, finished_at, row_number() OVER (PARTITION BY user_id ORDER BY id DESC) AS rn
+                FROM export_jobs
+                WHERE status IN ('DONE', 'FAILED'))
+            DELETE FROM export_jobs j
+            USING ranked r
+            WHERE j.id = r.id AND (r.finished_at < now() - ? * interval '1 millisecond' OR r.rn > ?)
+            RETURNING j.file_path
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExportJobRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long create(Long userId, ExportFormat format) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO export_jobs (user_id, format) VALUES (?, ?) RETURNING id",
+                Long.class, userId, format.name());
+    }
+
+    public int countActiveByUser(Long userId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM export_jobs WHERE user_id = ? AND status IN ('QUEUED', 'RUNNING')",
+                Integer.class, userId);
+    }
+
+    public List<ExportJob> findByUser(Long userId, int limit) {
+        return jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM export_jobs WHERE user_id = ? ORDER BY id DESC LIMIT ?",
+                ROW_MAPPER, userId, limit);
+    }
+
+    public Optional<ExportJob> findByIdAndUser(Long id, Long userId) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM export_jobs WHERE id = ? AND user_id = ?",
+                ROW_MAPPER, id, userId).stream().findFirst();
+    }
+
+    /**
+     * Блокирует планирование заданий до конца транзакции, чтобы реплики не превысили общий лимит.
+     */
+    public void lockScheduling() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)::text", String.class, SCHEDULE_LOCK_KEY);
+    }
+
+    public int countRunning() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM export_jobs WHERE status = 'RUNNING'",
+                Integer.class);
+    }
+
+    public Optional<ExportJob> claimNext(String claimToken) {
+        return jdbcTemplate.query(CLAIM_SQL, ROW_MAPPER, claimToken).stream().findFirst();
+    }
+
+    public int requeueStale(Duration staleAfter, int maxAttempts) {
+        return jdbcTemplate.update(REQUEUE_STALE_SQL, maxAttempts, maxAttempts, maxAttempts, staleAfter.toMillis());
+    }
+
+    public void setTotalRows(Long id, long totalRows) {
+        jdbcTemplate.update("UPDATE export_jobs SET total_rows = ? WHERE id = ?", totalRows, id);
+    }
+
+    /**
+     * Обновляет прогресс и heartbeat.
+     *
+     * @return false, если задание больше не принадлежит этому захвату
+     */
+    public boolean updateProgress(Long id, String claimToken, long rowsWritten) {
+        return jdbcTemplate.update("UPDATE export_jobs SET rows_written = ?, heartbeat_at = now() "
+                + "WHERE id = ? AND owner = ? AND status = 'RUNNING'", rowsWritten, id, claimToken) == 1;
+    }
+
+    public boolean complete(Long id, String claimToken, long rowsWritten, String filePath, long fileSize) {
+        return jdbcTemplate.update("UPDATE export_jobs SET status = 'DONE', rows_written = ?, file_path = ?, "
+                        + "file_size = ?, finished_at = now(), owner = NULL "
+                        + "WHERE id = ? AND owner = ? AND status = 'RUNNING'",
+                rowsWritten, filePath, fileSize, id, claimToken) == 1;
+    }
+
+    public void fail(Long id, String claimToken, String error) {
+        jdbcTemplate.update("UPDATE export_jobs SET status = 'FAILED', error = ?, finished_at = now(), owner = NULL "
+                + "WHERE id = ? AND owner = ? AND status = 'RUNNING'", error, id, claimToken);
+    }
+
+    /**
+     * Удаляет устаревшие задания и возвращает пути их файлов.
+     */
+    public List<String> deleteExpired(Duration retention, int keepPerUser) {
+        return jdbcTemplate.query(DELETE_EXPIRED_SQL, (rs, rowNum) -> rs.getString("file_path"),
+                retention.toMillis(), keepPerUser);
+    }
+}
@@ -0,0 +1,62 @@
+package com.notesystem.repository;
+
+import com.notesystem.dto.NoteField;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Чтение заметок для JSON API: только выбранные клиентом столбцы, страницы по возрастанию id.
+ * Строки читаются в словари без участия контекста персистентности.
+ */
+@Repository
+public class NoteApiRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public NoteApiRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Возвращает до limit заметок пользователя с id больше afterId.
+     */
+    public List<Map<String, Object>> findPage(Long userId, Set<NoteField> fields, long afterId, int limit) {
+        String sql = select(fields) + " WHERE n.user_id = :userId AND n.id > :afterId ORDER BY n.id LIMIT :limit";
+        return jdbcTemplate.query(sql, new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("afterId", afterId)
+                .addValue("limit", limit), mapper(fields));
+    }
+
+    public Optional<Map<String, Object>> findOne(Long userId, Long id, Set<NoteField> fields) {
+        String sql = select(fields) + " WHERE n.user_id = :userId AND n.id = :id";
+        return jdbcTemplate.query(sql, new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("id", id), mapper(fields)).stream().findFirst();
+    }
+
+    // Имена столбцов берутся только из перечисления, поэтому подстановка в текст запроса безопасна
+    private static String select(Set<NoteField> fields) {
+        return fields.stream()
+                .map(NoteField::getColumn)
+                .collect(Collectors.joining(", ", "SELECT ", " FROM notes n"));
+    }
+
+    private static RowMapper<Map<String, Object>> mapper(Set<NoteField> fields) {
+        return (rs, rowNum) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            for (NoteField field : fields) {
+                item.put(field.getName(), field.read(rs));
+            }
+            return item;
+        };
+    }
+}
@@ -0,0 +1,130 @@
+package com.notesystem.repository;
+
+import com.notesystem.dto.DueReminder;
+import com.notesystem.dto.PendingThumbnail;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Изменения заметок SQL-запросами в обход сессии Hibernate.
+ * Массовые операции выполняются одним запросом на весь набор id; каждый запрос ограничен владельцем,
+ * поэтому чужие id молча пропускаются, и возвращает только реально изменённые строки.
+ * Изменённые заметки нужно сбросить во втором уровне кеша, см. NoteCacheEvictor.
+ */
+@Repository
+public class NoteBulkRepository {
+
+    private static final String SET_COMPLETED_SQL = """
+            UPDATE notes SET completed = ?, version = version + 1
+            WHERE user_id = ? AND id = ANY(?) AND completed <> ?
+            RETURNING id, reminder
+            """;
+
+    private static final String CLEAR_REMINDERS_SQL = """
+            UPDATE notes
+            SET reminder = NULL, reminder_lease_owner = NULL, reminder_lease_until = NULL,
+                version = version + 1
+            WHERE user_id = ? AND id = ANY(?) AND reminder IS NOT NULL
+            RETURNING id
+            """;
+
+    private static final String DELETE_SQL = """
+            DELETE FROM notes
+            WHERE user_id = ? AND id = ANY(?)
+            RETURNING id, image_path
+            """;
+
+    // Копии записываются, только если изображение не заменили, пока они строились.
+    // Версия не меняется: копии появляются в фоне и не должны конфликтовать с правкой заметки
+    private static final String UPDATE_THUMBNAILS_SQL = """
+            UPDATE notes SET image_thumb_small = ?, image_thumb_large = ?, image_thumb_retry_at = NULL
+            WHERE id = ? AND image_path = ?
+            """;
+
+    private static final String DEFER_THUMBNAILS_SQL = """
+            UPDATE notes SET image_thumb_retry_at = now() + ? * interval '1 millisecond'
+            WHERE id = ? AND image_path = ? AND image_thumb_small IS NULL
+            """;
+
+    // Отложенные после сбоя заметки пропускаются до срока повтора, использует idx_notes_thumbnail_pending
+    private static final String PENDING_THUMBNAILS_SQL = """
+            SELECT id, image_path FROM notes
+            WHERE image_path IS NOT NULL AND image_thumb_small IS NULL
+              AND (image_thumb_retry_at IS NULL OR image_thumb_retry_at <= now())
+            ORDER BY id
+            LIMIT ?
+            """;
+
+    private static final RowMapper<DueReminder> REMINDER_MAPPER = (rs, rowNum) -> {
+        Timestamp reminder = rs.getTimestamp("reminder");
+        return new DueReminder(rs.getLong("id"), reminder != null ? reminder.toLocalDateTime() : null);
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NoteBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Меняет статус заметок и возвращает изменённые вместе с их напоминаниями.
+     */
+    public List<DueReminder> setCompleted(Long userId, Collection<Long> ids, boolean completed) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SET_COMPLETED_SQL);
+            ps.setBoolean(1, completed);
+            ps.setLong(2, userId);
+            ps.setArray(3, connection.createArrayOf("bigint", ids.toArray()));
+            ps.setBoolean(4, completed);
+            return ps;
+        }, REMINDER_MAPPER);
+    }
+
+    /**
+     * Снимает напоминания и возвращает id заметок, у которых они были.
+     */
+    public List<Long> clearReminders(Long userId, Collection<Long> ids) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(CLEAR_REMINDERS_SQL);
+            ps.setLong(1, userId);
+            ps.setArray(2, connection.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getLong("id"));
+    }
+
+    /**
+     * Удаляет заметки и возвращает их id и изображения, ссылки на которые нужно снять.
+     */
+    public List<DeletedNote> delete(Long userId, Collection<Long> ids) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(DELETE_SQL);
+            ps.setLong(1, userId);
+            ps.setArray(2, connection.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, (rs, rowNum) -> new DeletedNote(rs.getLong("id"), rs.getString("image_path")));
+    }
+
+    public int updateThumbnails(Long id, String imagePath, String small, String large) {
+        return jdbcTemplate.update(UPDATE_THUMBNAILS_SQL, small, large, id, imagePath);
+    }
+
+    /**
+     * Откладывает построение копий после временного сбоя; срок считается по часам базы.
+     */
+    public int deferThumbnails(Long id, String imagePath, long delayMillis) {
+        return jdbcTemplate.update(DEFER_THUMBNAILS_SQL, delayMillis, id, imagePath);
+    }
+
+    public List<PendingThumbnail> findPendingThumbnails(int limit) {
+        return jdbcTemplate.query(PENDING_THUMBNAILS_SQL,
+                (rs, rowNum) -> new PendingThumbnail(rs.getLong("id"), rs.getString("image_path")), limit);
+    }
+
+    public record DeletedNote(Long id, String imagePath) {
+    }
+}
@@ -0,0 +1,67 @@
+package com.notesystem.repository;
+
+import com.notesystem.dto.NoteExportRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.sql.Timestamp;
+import java.util.function.Consumer;
+
+/**
+ * Постраничное чтение заметок пользователя для экспорта.
+ * Заметки читаются порциями по chunk-size с keyset-пагинацией по id, каждая порция — отдельным
+ * коротким запросом вне транзакции. Строки передаются обработчику прямо из результата запроса
+ * в одном переиспользуемом объекте, без промежуточных списков. Соединение занято только на время
+ * обработки одной порции, а не всей выгрузки, и память ограничена размером порции.
+ */
+@Repository
+public class NoteExportRepository {
+
+    private static final String EXPORT_SQL = """
+            SELECT id, title, content, created_date, completed, reminder, image_path
+            FROM notes
+            WHERE user_id = ? AND id > ?
+            ORDER BY id
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+
+    public NoteExportRepository(JdbcTemplate jdbcTemplate,
+                                @Value("${notes.export.chunk-size}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    public long countByUser(Long userId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM notes WHERE user_id = ?", Long.class, userId);
+    }
+
+    /**
+     * Передаёт обработчику все заметки пользователя в порядке id.
+     * Обработчик получает один и тот же объект строки, заполненный очередной заметкой.
+     * Заметки, добавленные во время выгрузки, попадают в неё, только если их id больше уже прочитанных.
+     */
+    public void streamByUser(Long userId, Consumer<NoteExportRow> consumer) {
+        NoteExportRow row = new NoteExportRow();
+        long[] afterId = {0};
+        int[] read = {0};
+        do {
+            read[0] = 0;
+            jdbcTemplate.query(EXPORT_SQL, rs -> {
+                Timestamp reminder = rs.getTimestamp("reminder");
+                row.set(rs.getLong("id"),
+                        rs.getString("title"),
+                        rs.getString("content"),
+                        rs.getDate("created_date").toLocalDate(),
+                        rs.getBoolean("completed"),
+                        reminder != null ? reminder.toLocalDateTime() : null,
+                        rs.getString("image_path"));
+                consumer.accept(row);
+                afterId[0] = row.getId();
+                read[0]++;
+            }, userId, afterId[0], chunkSize);
+        } while (read[0] == chunkSize);
+    }
+}
@@ -0,0 +1,89 @@
+package com.notesystem.repository;
+
+import com.notesystem.dto.NoteCursor;
+import com.notesystem.dto.NoteListItem;
+import com.notesystem.dto.NoteSort;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Список заметок пользователя с keyset-пагинацией.
+ * Вместо OFFSET выполняется поиск по составному индексу от граничной строки
+ * через сравнение кортежей, поэтому глубокие страницы стоят столько же, сколько первая.
+ * Строки читаются в облегчённые проекции без участия контекста персистентности.
+ */
+@Repository
+public class NoteListRepository {
+
+    private static final int SNIPPET_LENGTH = 200;
+
+    /**
+     * Общее отображение строк списка; запрос должен вернуть столбцы
+     * id, title, snippet, created_date, completed, reminder, image_path и thumbnail_path.
+     */
+    static final RowMapper<NoteListItem> LIST_ITEM_MAPPER = (rs, rowNum) -> {
+        Timestamp reminder = rs.getTimestamp("reminder");
+        return new NoteListItem(
+                rs.getLong("id"),
+                rs.getString("title"),
+                rs.getString("snippet"),
+                rs.getDate("created_date").toLocalDate(),
+                rs.getBoolean("completed"),
+                reminder != null ? reminder.toLocalDateTime() : null,
+                rs.getString("image_path"),
+                rs.getString("thumbnail_path"));
+    };
+
+    private static final String SELECT_SQL = """
+            SELECT n.id, n.title, nullif(left(n.content, :snippetLength), '') AS snippet,
+                   n.created_date, n.completed, n.reminder, n.image_path,
+                   nullif(n.image_thumb_small, '') AS thumbnail_path
+            FROM notes n
+            WHERE n.user_id = :userId""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public NoteListRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Возвращает до limit заметок после (или перед) позицией курсора в порядке отображения.
+     */
+    public List<NoteListItem> findPage(Long userId, NoteSort sort, Sort.Direction direction,
+                                       NoteCursor cursor, int limit) {
+        // При движении назад порядок обращается, а результат разворачивает вызывающий код
+        boolean ascending = direction.isAscending() != (cursor != null && cursor.backward());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("snippetLength", SNIPPET_LENGTH)
+                .addValue("limit", limit);
+
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        if (cursor != null) {
+            String columns = sort.getKeys().stream()
+                    .map(key -> "n." + key.getColumn())
+                    .collect(Collectors.joining(", "));
+            String values = sort.getKeys().stream()
+                    .map(key -> ":" + key.getColumn())
+                    .collect(Collectors.joining(", "));
+            sql.append(" AND (").append(columns).append(ascending ? ") > (" : ") < (")
+                    .append(values).append(')');
+            for (int i = 0; i < sort.getKeys().size(); i++) {
+                params.addValue(sort.getKeys().get(i).getColumn(), cursor.keys().get(i));
+            }
+        }
+        sql.append(" ORDER BY ").append(sort.getKeys().stream()
+                .map(key -> "n." + key.getColumn() + (ascending ? " ASC" : " DESC"))
+                .collect(Collectors.joining(", ")));
+        sql.append(" LIMIT :limit");
+
+        return jdbcTemplate.query(sql.toString(), params, LIST_ITEM_MAPPER);
+    }
+}
@@ -1,26 +1,37 @@
 package com.notesystem.repository;
 
+import com.notesystem.dto.DueReminder;
+import com.notesystem.dto.NoteIndexRow;
 import com.notesystem.model.Note;
 import com.notesystem.model.User;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface NoteRepository extends JpaRepository<Note, Long> {
-    Page<Note> findByUser(User user, Pageable pageable);
+    // Загрузка заметок пользователя для поискового индекса без материализации сущностей
+    @Query("SELECT new com.notesystem.dto.NoteIndexRow(n.id, n.title, n.content, n.completed) " +
+            "FROM Note n WHERE n.user = :user ORDER BY n.id")
+    List<NoteIndexRow> findIndexRowsByUser(User user);
 
-    // Исправленный запрос
-    @Query("SELECT n FROM Note n WHERE n.user = :user AND " +
-            "(LOWER(n.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-            "LOWER(n.content) LIKE LOWER(CONCAT('%', :query, '%')))")
-    Page<Note> searchByUser(User user, String query, Pageable pageable);
+    // Окно напоминаний с keyset-пагинацией по (reminder, id), использует idx_notes_reminder_pending
+    @Query("SELECT new com.notesystem.dto.DueReminder(n.id, n.reminder) FROM Note n " +
+            "WHERE n.reminder IS NOT NULL AND n.completed = false AND n.reminder <= :until " +
+            "AND (n.reminder > :afterReminder OR (n.reminder = :afterReminder AND n.id > :afterId)) " +
+            "ORDER BY n.reminder, n.id")
+    List<DueReminder> findRemindersDueBefore(LocalDateTime until, LocalDateTime afterReminder,
+                                             Long afterId, Pageable pageable);
 
-    List<Note> findByUser(User user);
-    List<Note> findByReminderIsNotNullAndCompletedFalse();
-    Optional<Note> findByIdAndUser(Long id, User user);
+    // Заметки пакетной операции загружаются одним запросом, дальше они берутся из контекста персистентности
+    List<Note> findByUserAndIdIn(User user, Collection<Long> ids);
+
+    // Одно изображение может принадлежать заметкам разных пользователей, поэтому проверяется пара
+    @Query("SELECT count(n) > 0 FROM Note n WHERE n.user = :user AND " +
+            "(n.imagePath = :path OR n.imageThumbSmall = :path OR n.imageThumbLarge = :path)")
+    boolean existsImageOfUser(User user, String path);
 }
\ No newline at end of file
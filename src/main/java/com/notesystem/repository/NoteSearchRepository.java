@@ -0,0 +1,63 @@
+package com.notesystem.repository;
+
+import com.notesystem.dto.NoteListItem;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+/**
+ * Полнотекстовый поиск по заметкам пользователя.
+ * Использует GIN-индексы по search_vector и триграммам, ранжирует результаты через ts_rank
+ * и строит фрагменты через ts_headline. Общее количество совпадений не считается.
+ */
+@Repository
+public class NoteSearchRepository {
+
+    // Поиск по подстроке через триграммы имеет смысл начиная с трёх символов
+    private static final int MIN_SUBSTRING_LENGTH = 3;
+
+    private static final String SEARCH_SQL = """
+            SELECT n.id, n.title, n.created_date, n.completed, n.reminder, n.image_path,
+                   nullif(n.image_thumb_small, '') AS thumbnail_path,
+                   ts_rank(n.search_vector, q.query) AS rank,
+                   ts_headline('russian', coalesce(nullif(n.content, ''), n.title), q.query,
+                               'StartSel=[[, StopSel=]], MaxWords=30, MinWords=10, MaxFragments=2') AS snippet
+            FROM notes n,
+                 (SELECT websearch_to_tsquery('russian', :query) || websearch_to_tsquery('simple', :query) AS query) q
+            WHERE n.user_id = :userId
+              AND (n.search_vector @@ q.query %s)
+            ORDER BY rank DESC, n.id DESC
+            LIMIT :limit OFFSET :offset
+            """;
+
+    private static final String SUBSTRING_CONDITION =
+            "OR n.title ILIKE :pattern OR n.content ILIKE :pattern";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public NoteSearchRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<NoteListItem> search(Long userId, String query, int limit, long offset) {
+        String trimmed = query.trim();
+        boolean substring = trimmed.length() >= MIN_SUBSTRING_LENGTH;
+        String sql = String.format(SEARCH_SQL, substring ? SUBSTRING_CONDITION : "");
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("query", trimmed)
+                .addValue("limit", limit)
+                .addValue("offset", offset);
+        if (substring) {
+            params.addValue("pattern", "%" + escapeLike(trimmed) + "%");
+        }
+
+        return jdbcTemplate.query(sql, params, NoteListRepository.LIST_ITEM_MAPPER);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,95 @@
+package com.notesystem.repository;
+
+import com.notesystem.dto.OutboxEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий таблицы outbox.
+ * Вставка выполняется в текущей транзакции, чтение и удаление — пакетами.
+ */
+@Repository
+public class OutboxRepository {
+
+    // Ключ advisory-блокировки: одновременно outbox разбирает только одна реплика, что сохраняет порядок
+    private static final long RELAY_LOCK_KEY = 0x6F7574626F78L;
+    private static final String INSERT_SQL = "INSERT INTO outbox_events (topic, message_key, payload) VALUES (?, ?, ?)";
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void append(String topic, Long key, byte[] payload) {
+        appendAll(List.of(new OutboxEvent(null, topic, key, payload, null)));
+    }
+
+    public void appendAll(List<OutboxEvent> events) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, events, INSERT_BATCH_SIZE, (ps, event) -> {
+            ps.setString(1, event.topic());
+            if (event.key() != null) {
+                ps.setLong(2, event.key());
+            } else {
+                ps.setNull(2, Types.BIGINT);
+            }
+            ps.setBytes(3, event.payload());
+        });
+    }
+
+    public boolean tryLockRelay() {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class,
+                RELAY_LOCK_KEY);
+        return Boolean.TRUE.equals(locked);
+    }
+
+    public List<OutboxEvent> findBatch(int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, topic, message_key, payload, created_at FROM outbox_events ORDER BY id LIMIT ?",
+                (rs, rowNum) -> {
+                    long key = rs.getLong("message_key");
+                    return new OutboxEvent(
+                            rs.getLong("id"),
+                            rs.getString("topic"),
+                            rs.wasNull() ? null : key,
+                            rs.getBytes("payload"),
+                            rs.getTimestamp("created_at").toLocalDateTime());
+                },
+                limit);
+    }
+
+    public int deleteAll(List<OutboxEvent> events) {
+        Long[] ids = events.stream().map(OutboxEvent::id).toArray(Long[]::new);
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("DELETE FROM outbox_events WHERE id = ANY(?)");
+            Array idArray = connection.createArrayOf("bigint", ids);
+            ps.setArray(1, idArray);
+            return ps;
+        });
+    }
+
+    /**
+     * Возвращает возраст самой старой записи и оценку числа ожидающих записей.
+     * Оба значения берутся по первичному ключу, без полного подсчёта строк.
+     * Возраст считается по часам базы, которыми заполнен created_at, а не по часам приложения.
+     */
+    public Optional<Backlog> findBacklog() {
+        List<Backlog> rows = jdbcTemplate.query(
+                "SELECT o.id, (SELECT max(id) FROM outbox_events) AS max_id, " +
+                        "greatest(0, extract(epoch FROM now() - o.created_at) * 1000)::bigint AS age_millis " +
+                        "FROM outbox_events o ORDER BY o.id LIMIT 1",
+                (rs, rowNum) -> new Backlog(
+                        rs.getLong("max_id") - rs.getLong("id") + 1,
+                        rs.getLong("age_millis")));
+        return rows.stream().findFirst();
+    }
+
+    public record Backlog(long estimatedSize, long oldestAgeMillis) {
+    }
+}
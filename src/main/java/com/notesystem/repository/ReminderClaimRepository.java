@@ -0,0 +1,86 @@
+package com.notesystem.repository;
+
+import com.notesystem.dto.ClaimedReminder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Репозиторий для захвата напоминаний несколькими экземплярами приложения.
+ * Пакет строк арендуется одним запросом с FOR UPDATE SKIP LOCKED,
+ * поэтому реплики не отправляют одно и то же напоминание дважды.
+ */
+@Repository
+public class ReminderClaimRepository {
+
+    private static final String CLAIM_SQL = """
+            UPDATE notes SET reminder_lease_owner = ?, reminder_lease_until = ?
+            WHERE id IN (
+                SELECT id FROM notes
+                WHERE reminder IS NOT NULL AND NOT completed AND reminder <= ?
+                  AND (reminder_lease_until IS NULL OR reminder_lease_until < ?)
+                ORDER BY reminder
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            RETURNING id, user_id, title, created_date, reminder
+            """;
+
+    // Напоминание снимается, только если пользователь не изменил его и не выполнил заметку после захвата
+    private static final String MARK_DELIVERED_SQL = """
+            UPDATE notes n
+            SET reminder = NULL, reminder_lease_owner = NULL, reminder_lease_until = NULL,
+                version = n.version + 1
+            FROM unnest(?::bigint[], ?::timestamp[]) AS d(id, reminder)
+            WHERE n.id = d.id AND n.reminder = d.reminder AND NOT n.completed
+              AND n.reminder_lease_owner = ?
+            RETURNING n.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReminderClaimRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Арендует пакет наступивших напоминаний, включая напоминания с истёкшей арендой.
+     */
+    public List<ClaimedReminder> claimDue(String owner, LocalDateTime now, LocalDateTime leaseUntil, int limit) {
+        return jdbcTemplate.query(CLAIM_SQL,
+                (rs, rowNum) -> new ClaimedReminder(
+                        rs.getLong("id"),
+                        rs.getLong("user_id"),
+                        rs.getString("title"),
+                        rs.getDate("created_date").toLocalDate(),
+                        rs.getTimestamp("reminder").toLocalDateTime()),
+                owner, Timestamp.valueOf(leaseUntil), Timestamp.valueOf(now), Timestamp.valueOf(now), limit);
+    }
+
+    /**
+     * Отмечает весь пакет доставленным одним запросом.
+     *
+     * @return id заметок, напоминания которых действительно сняты
+     */
+    public List<Long> markDelivered(String owner, List<ClaimedReminder> reminders) {
+        Long[] ids = new Long[reminders.size()];
+        Timestamp[] dueTimes = new Timestamp[reminders.size()];
+        for (int i = 0; i < reminders.size(); i++) {
+            ids[i] = reminders.get(i).noteId();
+            dueTimes[i] = Timestamp.valueOf(reminders.get(i).reminder());
+        }
+
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(MARK_DELIVERED_SQL);
+            Array idArray = connection.createArrayOf("bigint", ids);
+            Array dueArray = connection.createArrayOf("timestamp", dueTimes);
+            ps.setArray(1, idArray);
+            ps.setArray(2, dueArray);
+            ps.setString(3, owner);
+            return ps;
+        }, (rs, rowNum) -> rs.getLong(1));
+    }
+}
@@ -0,0 +1,95 @@
+package com.notesystem.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий счётчиков ссылок на файлы изображений.
+ * Файл с нулевым счётчиком остаётся на диске до истечения отсрочки, после чего его удаляет сборщик.
+ */
+@Repository
+public class StoredBlobRepository {
+
+    // Повторная загрузка того же содержимого продлевает отсрочку для ещё не использованного файла
+    private static final String RESERVE_SQL = """
+            INSERT INTO stored_blobs (path, size, released_at) VALUES (?, ?, now())
+            ON CONFLICT (path) DO UPDATE
+            SET released_at = CASE WHEN stored_blobs.ref_count = 0 THEN now() ELSE stored_blobs.released_at END
+            """;
+
+    private static final String RETAIN_SQL = """
+            INSERT INTO stored_blobs (path, ref_count) VALUES (?, 1)
+            ON CONFLICT (path) DO UPDATE
+            SET ref_count = stored_blobs.ref_count + 1, released_at = NULL
+            """;
+
+    private static final String RELEASE_SQL = """
+            UPDATE stored_blobs
+            SET ref_count = greatest(ref_count - 1, 0),
+                released_at = CASE WHEN ref_count <= 1 THEN now() ELSE NULL END
+            WHERE path = ?
+            """;
+
+    // Один файл может быть у нескольких удаляемых заметок, поэтому ссылки снимаются по числу вхождений
+    private static final String RELEASE_ALL_SQL = """
+            UPDATE stored_blobs b
+            SET ref_count = greatest(b.ref_count - d.refs, 0),
+                released_at = CASE WHEN b.ref_count <= d.refs THEN now() ELSE NULL END
+            FROM (SELECT path, count(*) AS refs FROM unnest(?::text[]) AS path GROUP BY path) d
+            WHERE b.path = d.path
+            """;
+
+    // Строки блокируются до конца транзакции, поэтому параллельная загрузка того же файла ждёт удаления
+    private static final String DELETE_UNREFERENCED_SQL = """
+            DELETE FROM stored_blobs
+            WHERE path IN (
+                SELECT path FROM stored_blobs
+                WHERE ref_count = 0 AND released_at < now() - ? * interval '1 millisecond'
+                ORDER BY released_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            RETURNING path
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StoredBlobRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Регистрирует файл без ссылок, чтобы он был удалён, если ссылка так и не появится.
+     */
+    public void reserve(String path, long size) {
+        jdbcTemplate.update(RESERVE_SQL, path, size);
+    }
+
+    public void retain(String path) {
+        jdbcTemplate.update(RETAIN_SQL, path);
+    }
+
+    public void release(String path) {
+        jdbcTemplate.update(RELEASE_SQL, path);
+    }
+
+    public void releaseAll(Collection<String> paths) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(RELEASE_ALL_SQL);
+            ps.setArray(1, connection.createArrayOf("text", paths.toArray()));
+            return ps;
+        });
+    }
+
+    /**
+     * Удаляет пакет записей без ссылок дольше отсрочки и возвращает их пути.
+     * Отсрочка отсчитывается по часам базы, которыми записан released_at.
+     */
+    public List<String> deleteUnreferenced(Duration grace, int limit) {
+        return jdbcTemplate.query(DELETE_UNREFERENCED_SQL, (rs, rowNum) -> rs.getString("path"),
+                grace.toMillis(), limit);
+    }
+}
@@ -0,0 +1,100 @@
+package com.notesystem.repository;
+
+import com.notesystem.dto.TokenRevocation;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий refresh-токенов и журнала отзыва access-токенов.
+ */
+@Repository
+public class TokenRepository {
+
+    private static final RowMapper<TokenRevocation> REVOCATION_MAPPER = (rs, rowNum) -> {
+        long userId = rs.getLong("user_id");
+        boolean noUser = rs.wasNull();
+        return new TokenRevocation(
+                rs.getString("jti"),
+                noUser ? null : userId,
+                rs.getTimestamp("revoked_at").toInstant(),
+                rs.getTimestamp("expires_at").toInstant());
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TokenRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void createRefreshToken(Long userId, String tokenHash, Instant expiresAt) {
+        jdbcTemplate.update("INSERT INTO refresh_tokens (user_id, token_hash, expires_at) VALUES (?, ?, ?)",
+                userId, tokenHash, Timestamp.from(expiresAt));
+    }
+
+    /**
+     * Блокирует refresh-токен до конца транзакции, чтобы его нельзя было обменять дважды.
+     */
+    public Optional<RefreshTokenRow> lockRefreshToken(String tokenHash) {
+        return jdbcTemplate.query("SELECT id, user_id, expires_at, revoked_at, replaced_at FROM refresh_tokens "
+                        + "WHERE token_hash = ? FOR UPDATE",
+                (rs, rowNum) -> new RefreshTokenRow(
+                        rs.getLong("id"),
+                        rs.getLong("user_id"),
+                        rs.getTimestamp("expires_at").toInstant(),
+                        rs.getTimestamp("revoked_at") != null,
+                        rs.getTimestamp("replaced_at") != null),
+                tokenHash).stream().findFirst();
+    }
+
+    /**
+     * Отзывает refresh-токен, обменянный на новую пару, с отметкой об обмене.
+     */
+    public void replaceRefreshToken(long id) {
+        jdbcTemplate.update("UPDATE refresh_tokens SET revoked_at = now(), replaced_at = now() "
+                + "WHERE id = ? AND revoked_at IS NULL", id);
+    }
+
+    public boolean revokeRefreshToken(Long userId, String tokenHash) {
+        return jdbcTemplate.update("UPDATE refresh_tokens SET revoked_at = now() "
+                + "WHERE user_id = ? AND token_hash = ? AND revoked_at IS NULL", userId, tokenHash) == 1;
+    }
+
+    public int revokeRefreshTokensOfUser(Long userId) {
+        return jdbcTemplate.update("UPDATE refresh_tokens SET revoked_at = now() "
+                + "WHERE user_id = ? AND revoked_at IS NULL", userId);
+    }
+
+    public void revokeAccessToken(String jti, Instant expiresAt) {
+        jdbcTemplate.update("INSERT INTO token_revocations (jti, expires_at) VALUES (?, ?)",
+                jti, Timestamp.from(expiresAt));
+    }
+
+    // Время отзыва задаёт приложение: оно сравнивается с iat, который выставляют часы приложения
+    public void revokeAccessTokensOfUser(Long userId, Instant revokedAt, Instant expiresAt) {
+        jdbcTemplate.update("INSERT INTO token_revocations (user_id, revoked_at, expires_at) VALUES (?, ?, ?)",
+                userId, Timestamp.from(revokedAt), Timestamp.from(expiresAt));
+    }
+
+    /**
+     * Действующие записи журнала отзыва. Их немного: каждая живёт не дольше access-токена,
+     * поэтому журнал читается целиком и не зависит от порядка фиксации вставок.
+     */
+    public List<TokenRevocation> findActiveRevocations(Instant now) {
+        return jdbcTemplate.query("SELECT jti, user_id, revoked_at, expires_at FROM token_revocations "
+                + "WHERE expires_at > ?", REVOCATION_MAPPER, Timestamp.from(now));
+    }
+
+    public int deleteExpired(Instant now) {
+        Timestamp cutoff = Timestamp.from(now);
+        return jdbcTemplate.update("DELETE FROM token_revocations WHERE expires_at <= ?", cutoff)
+                + jdbcTemplate.update("DELETE FROM refresh_tokens WHERE expires_at <= ?", cutoff);
+    }
+
+    public record RefreshTokenRow(long id, long userId, Instant expiresAt, boolean revoked, boolean replaced) {
+    }
+}
@@ -4,6 +4,7 @@ import com.notesystem.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
@@ -15,6 +16,11 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
+
+    // Счётчик изменений заметок ведут триггеры базы; строка появляется при первом изменении заметок
+    @Query(value = "SELECT coalesce((SELECT version FROM user_notes_version WHERE user_id = :userId), 0)",
+            nativeQuery = true)
+    long findNotesVersion(Long userId);
     Page<User> findByUsernameContainingIgnoreCase(String username, Pageable pageable);
     Page<User> findAll(Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.notesystem.scheduler;
+
+import com.notesystem.repository.StoredBlobRepository;
+import com.notesystem.service.FileStorageService;
+import com.notesystem.service.ThumbnailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Сборщик файлов изображений, на которые не осталось ссылок.
+ * Удаляет их пакетами вместе с уменьшенными копиями по истечении отсрочки.
+ */
+@Component
+public class BlobGarbageCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobGarbageCollector.class);
+
+    private final StoredBlobRepository storedBlobRepository;
+    private final FileStorageService fileStorageService;
+    private final ThumbnailService thumbnailService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration grace;
+    private final int batchSize;
+
+    public BlobGarbageCollector(StoredBlobRepository storedBlobRepository,
+                                FileStorageService fileStorageService,
+                                ThumbnailService thumbnailService,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${notes.storage.gc.grace}") Duration grace,
+                                @Value("${notes.storage.gc.batch-size}") int batchSize) {
+        this.storedBlobRepository = storedBlobRepository;
+        this.fileStorageService = fileStorageService;
+        this.thumbnailService = thumbnailService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.grace = grace;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${notes.storage.gc.interval-ms}")
+    public void collect() {
+        try {
+            int removed = 0;
+            int batch;
+            do {
+                batch = transactionTemplate.execute(status -> collectBatch());
+                removed += batch;
+            } while (batch == batchSize);
+            if (removed > 0) {
+                log.info("Removed {} unreferenced images", removed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Image garbage collection failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    // Файлы удаляются до фиксации, пока строки заблокированы и повторная загрузка того же файла ждёт
+    private int collectBatch() {
+        List<String> paths = storedBlobRepository.deleteUnreferenced(grace, batchSize);
+        for (String path : paths) {
+            deleteQuietly(path);
+            ThumbnailService.SIZES.forEach(size -> deleteQuietly(thumbnailService.variantName(path, size)));
+        }
+        return paths.size();
+    }
+
+    private void deleteQuietly(String fileName) {
+        try {
+            fileStorageService.deleteImage(fileName);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Failed to delete image file {}: {}", fileName, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.notesystem.scheduler;
+
+import com.notesystem.config.TaskExecutors;
+import com.notesystem.dto.ExportJob;
+import com.notesystem.service.ExportJobService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Исполнитель заданий выгрузки.
+ * Берёт задания из общей очереди, пока у экземпляра есть свободные потоки,
+ * и периодически удаляет устаревшие результаты.
+ */
+@Component
+public class ExportJobWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportJobWorker.class);
+
+    private final ExportJobService exportJobService;
+    private final int workers;
+    private final AtomicInteger active = new AtomicInteger();
+    private final ExecutorService executor;
+
+    public ExportJobWorker(ExportJobService exportJobService,
+                           @Value("${notes.export.jobs.workers}") int workers,
+                           @Value("${spring.threads.virtual.enabled}") boolean virtualThreads,
+                           MeterRegistry meterRegistry) {
+        this.exportJobService = exportJobService;
+        this.workers = workers;
+        // Число одновременных выгрузок ограничивает счётчик active, а не размер пула
+        this.executor = TaskExecutors.newExecutor("export-worker", workers, virtualThreads);
+        Gauge.builder("notes.export.jobs.active", active, AtomicInteger::get)
+                .description("Выгрузки, выполняющиеся на этом экземпляре")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${notes.export.jobs.poll-ms}")
+    public void poll() {
+        try {
+            while (active.get() < workers) {
+                // Свой токен на каждый захват: запоздалый поток прежней попытки того же экземпляра
+                // не сможет записать прогресс или результат поверх повторного захвата
+                String claimToken = UUID.randomUUID().toString();
+                Optional<ExportJob> job = exportJobService.claimNext(claimToken);
+                if (job.isEmpty()) {
+                    return;
+                }
+                active.incrementAndGet();
+                executor.execute(() -> {
+                    try {
+                        exportJobService.run(job.get(), claimToken);
+                    } finally {
+                        active.decrementAndGet();
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            log.warn("Export job polling failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notes.export.jobs.cleanup-ms}")
+    public void cleanup() {
+        try {
+            int removed = exportJobService.cleanup();
+            if (removed > 0) {
+                log.info("Removed {} expired export jobs", removed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Export cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,64 @@
+package com.notesystem.scheduler;
+
+import com.notesystem.service.OutboxService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновый ретранслятор outbox в Kafka.
+ * Разбирает таблицу упорядоченными пакетами и публикует отставание в метриках.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxService outboxService;
+    private final int batchSize;
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+
+    public OutboxRelay(OutboxService outboxService,
+                       @Value("${notes.outbox.batch-size}") int batchSize,
+                       MeterRegistry meterRegistry) {
+        this.outboxService = outboxService;
+        this.batchSize = batchSize;
+        Gauge.builder("notes.outbox.lag", lagMillis, value -> value.get() / 1000.0)
+                .description("Возраст самой старой неотправленной записи outbox")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("notes.outbox.pending", pending, AtomicLong::get)
+                .description("Оценка числа неотправленных записей outbox")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${notes.outbox.poll-ms}")
+    public void relay() {
+        try {
+            int relayed;
+            do {
+                relayed = outboxService.relayBatch(batchSize);
+            } while (relayed == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay failed, will retry: {}", e.getMessage());
+        } finally {
+            updateLag();
+        }
+    }
+
+    private void updateLag() {
+        outboxService.getBacklog().ifPresentOrElse(backlog -> {
+            pending.set(backlog.estimatedSize());
+            lagMillis.set(backlog.oldestAgeMillis());
+        }, () -> {
+            pending.set(0);
+            lagMillis.set(0);
+        });
+    }
+}
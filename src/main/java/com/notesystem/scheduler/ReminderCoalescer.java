@@ -0,0 +1,130 @@
+package com.notesystem.scheduler;
+
+import com.notesystem.dto.ClaimedReminder;
+import com.notesystem.service.NoteService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Объединяет наступившие напоминания одного пользователя в дайджест.
+ * Напоминания копятся в течение окна (или до достижения предельного размера)
+ * и уходят одним событием. Пока дайджест собирается, заметки остаются арендованными,
+ * поэтому при падении экземпляра их подберёт другая реплика.
+ */
+@Component
+public class ReminderCoalescer {
+
+    private final NoteService noteService;
+    private final long windowMillis;
+    private final int maxDigestSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, PendingDigest> pending = new HashMap<>();
+    // Размер pending для метрики, обновляется под блокировкой
+    private final AtomicInteger pendingUsers = new AtomicInteger();
+    private final Counter remindersIn;
+    private final Counter digestsOut;
+
+    public ReminderCoalescer(NoteService noteService,
+                             @Value("${notes.reminders.digest.window}") Duration window,
+                             @Value("${notes.reminders.digest.max-size}") int maxDigestSize,
+                             @Value("${notes.reminders.lease}") Duration leaseDuration,
+                             MeterRegistry meterRegistry) {
+        if (leaseDuration.compareTo(window.multipliedBy(2)) < 0) {
+            throw new IllegalArgumentException("Аренда напоминаний должна быть минимум вдвое длиннее окна дайджеста");
+        }
+        this.noteService = noteService;
+        this.windowMillis = window.toMillis();
+        this.maxDigestSize = maxDigestSize;
+        this.remindersIn = meterRegistry.counter("notes.reminders.coalesce.in");
+        this.digestsOut = meterRegistry.counter("notes.reminders.coalesce.out");
+        Counter out = digestsOut;
+        Gauge.builder("notes.reminders.coalesce.ratio", remindersIn,
+                        in -> out.count() == 0 ? 1.0 : in.count() / out.count())
+                .description("Среднее число напоминаний в одном отправленном дайджесте")
+                .register(meterRegistry);
+        Gauge.builder("notes.reminders.coalesce.pending", pendingUsers, AtomicInteger::get)
+                .description("Число пользователей с незавершённым дайджестом")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Принимает арендованные напоминания. Полные дайджесты отправляются сразу.
+     */
+    public void offer(String owner, List<ClaimedReminder> reminders) {
+        long now = System.currentTimeMillis();
+        List<PendingDigest> ready = new ArrayList<>();
+        lock.lock();
+        try {
+            for (ClaimedReminder reminder : reminders) {
+                PendingDigest digest = pending.computeIfAbsent(reminder.userId(),
+                        userId -> new PendingDigest(owner, now));
+                digest.reminders.add(reminder);
+                if (windowMillis == 0 || digest.reminders.size() >= maxDigestSize) {
+                    pending.remove(reminder.userId());
+                    ready.add(digest);
+                }
+            }
+            pendingUsers.set(pending.size());
+        } finally {
+            lock.unlock();
+        }
+        remindersIn.increment(reminders.size());
+        deliver(ready);
+    }
+
+    @Scheduled(fixedDelayString = "${notes.reminders.digest.flush-ms}")
+    public void flushExpired() {
+        long now = System.currentTimeMillis();
+        List<PendingDigest> ready = new ArrayList<>();
+        lock.lock();
+        try {
+            Iterator<PendingDigest> it = pending.values().iterator();
+            while (it.hasNext()) {
+                PendingDigest digest = it.next();
+                if (now - digest.openedAt >= windowMillis) {
+                    it.remove();
+                    ready.add(digest);
+                }
+            }
+            pendingUsers.set(pending.size());
+        } finally {
+            lock.unlock();
+        }
+        deliver(ready);
+    }
+
+    // Все готовые дайджесты записываются в outbox одной транзакцией
+    private void deliver(List<PendingDigest> digests) {
+        if (digests.isEmpty()) {
+            return;
+        }
+        Map<String, List<PendingDigest>> byOwner = new HashMap<>();
+        digests.forEach(digest -> byOwner.computeIfAbsent(digest.owner, owner -> new ArrayList<>()).add(digest));
+
+        byOwner.forEach((owner, ownerDigests) -> digestsOut.increment(noteService.deliverReminders(owner,
+                ownerDigests.stream().map(digest -> digest.reminders).toList())));
+    }
+
+    private static final class PendingDigest {
+        private final String owner;
+        private final long openedAt;
+        private final List<ClaimedReminder> reminders = new ArrayList<>();
+
+        private PendingDigest(String owner, long openedAt) {
+            this.owner = owner;
+            this.openedAt = openedAt;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.notesystem.scheduler;
+
+import com.notesystem.dto.DueReminder;
+import com.notesystem.model.Note;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Диспетчер напоминаний на основе колеса таймеров.
+ * Хранит в памяти только напоминания, срок которых наступает в пределах горизонта.
+ */
+@Component
+public class ReminderDispatcher {
+
+    private final TimingWheel wheel;
+    private final Duration horizon;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public ReminderDispatcher(@Value("${notes.reminders.tick-ms}") long tickMillis,
+                              @Value("${notes.reminders.horizon}") Duration horizon) {
+        this.wheel = new TimingWheel(tickMillis, System.currentTimeMillis());
+        this.horizon = horizon;
+        if (horizon.toMillis() >= wheel.spanMillis()) {
+            throw new IllegalArgumentException("Горизонт напоминаний превышает ёмкость колеса таймеров");
+        }
+    }
+
+    /**
+     * Граница окна, в пределах которого напоминания загружаются в память.
+     */
+    public LocalDateTime horizonEnd() {
+        return LocalDateTime.now().plus(horizon);
+    }
+
+    /**
+     * Синхронизирует таймер с текущим состоянием заметки.
+     */
+    public void track(Note note) {
+        if (note.getReminder() == null || note.isCompleted()) {
+            cancel(note.getId());
+        } else {
+            schedule(note.getId(), note.getReminder());
+        }
+    }
+
+    public void schedule(Long noteId, LocalDateTime reminder) {
+        lock.lock();
+        try {
+            if (reminder.isAfter(horizonEnd())) {
+                // Дальние напоминания подхватит следующая загрузка окна
+                wheel.cancel(noteId);
+            } else {
+                wheel.schedule(noteId, toMillis(reminder));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cancel(Long noteId) {
+        lock.lock();
+        try {
+            wheel.cancel(noteId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void refill(List<DueReminder> reminders) {
+        lock.lock();
+        try {
+            for (DueReminder reminder : reminders) {
+                wheel.schedule(reminder.noteId(), toMillis(reminder.reminder()));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Продвигает колесо до текущего момента и возвращает сработавшие заметки.
+     */
+    public List<Long> pollDue() {
+        lock.lock();
+        try {
+            return wheel.advance(System.currentTimeMillis());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return wheel.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -1,41 +1,86 @@
 package com.notesystem.scheduler;
 
-import com.notesystem.model.Note;
+import com.notesystem.dto.ClaimedReminder;
+import com.notesystem.dto.DueReminder;
 import com.notesystem.service.NoteService;
-import com.notesystem.service.KafkaProducerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Планировщик для проверки напоминаний.
- * Каждую минуту проверяет активные напоминания и отправляет уведомления.
+ * Периодически загружает ближайшие напоминания в колесо таймеров, а при их срабатывании
+ * арендует пакет наступивших напоминаний в БД, так что каждую заметку отправляет ровно одна реплика.
  */
 @Component
 public class ReminderScheduler {
 
+    private static final Logger log = LoggerFactory.getLogger(ReminderScheduler.class);
+
     private final NoteService noteService;
-    private final KafkaProducerService kafkaProducerService;
+    private final ReminderDispatcher reminderDispatcher;
+    private final ReminderCoalescer reminderCoalescer;
+    private final int refillBatchSize;
+    private final int claimBatchSize;
+    private final Duration leaseDuration;
+    private final String instanceId = UUID.randomUUID().toString();
 
     public ReminderScheduler(NoteService noteService,
-                             KafkaProducerService kafkaProducerService) {
+                             ReminderDispatcher reminderDispatcher,
+                             ReminderCoalescer reminderCoalescer,
+                             @Value("${notes.reminders.refill-batch-size}") int refillBatchSize,
+                             @Value("${notes.reminders.claim-batch-size}") int claimBatchSize,
+                             @Value("${notes.reminders.lease}") Duration leaseDuration) {
         this.noteService = noteService;
-        this.kafkaProducerService = kafkaProducerService;
+        this.reminderDispatcher = reminderDispatcher;
+        this.reminderCoalescer = reminderCoalescer;
+        this.refillBatchSize = refillBatchSize;
+        this.claimBatchSize = claimBatchSize;
+        this.leaseDuration = leaseDuration;
+    }
+
+    @Scheduled(fixedDelayString = "${notes.reminders.tick-ms}")
+    public void dispatchDueReminders() {
+        if (!reminderDispatcher.pollDue().isEmpty()) {
+            deliverClaimed();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notes.reminders.refill-ms}")
+    public void refillReminders() {
+        LocalDateTime until = reminderDispatcher.horizonEnd();
+        DueReminder last = null;
+        List<DueReminder> page;
+        do {
+            page = noteService.getRemindersDueBefore(until, last, refillBatchSize);
+            reminderDispatcher.refill(page);
+            if (!page.isEmpty()) {
+                last = page.get(page.size() - 1);
+            }
+        } while (page.size() == refillBatchSize);
+
+        // Подбираем напоминания с истёкшей арендой, оставшиеся после упавших реплик
+        deliverClaimed();
     }
 
-    @Scheduled(fixedRate = 60000)
-    public void checkReminders() {
-        noteService.getPendingReminders().forEach(note -> {
-            if (note.getReminder().isBefore(LocalDateTime.now())) {
-                String message = String.format("Напоминание: %s (создано %s) просрочено!",
-                        note.getTitle(),
-                        note.getCreatedDate().toString());
-                kafkaProducerService.sendReminder(message);
-
-                // Отмечаем напоминание как обработанное
-                note.setReminder(null);
-                noteService.updateNote(note.getId(), note, null, null);
+    private void deliverClaimed() {
+        List<ClaimedReminder> claimed;
+        do {
+            LocalDateTime now = LocalDateTime.now();
+            claimed = noteService.claimDueReminders(instanceId, now, now.plus(leaseDuration), claimBatchSize);
+            if (claimed.isEmpty()) {
+                return;
             }
-        });
+
+            // Напоминания группируются по получателю и уходят в outbox дайджестами
+            reminderCoalescer.offer(instanceId, claimed);
+            log.debug("Claimed {} reminders", claimed.size());
+        } while (claimed.size() == claimBatchSize);
     }
-}
\ No newline at end of file
+}
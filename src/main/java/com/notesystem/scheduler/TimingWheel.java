@@ -0,0 +1,183 @@
+package com.notesystem.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Иерархическое колесо таймеров для идентификаторов заметок.
+ * Вставка, отмена и срабатывание выполняются за O(1) на элемент,
+ * стоимость одного тика не зависит от общего числа напоминаний.
+ * Класс не потокобезопасен: синхронизацию обеспечивает владелец.
+ */
+public class TimingWheel {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Entry[][] buckets = new Entry[LEVELS][WHEEL_SIZE];
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Длительность тика должна быть положительной");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Максимальное расстояние до срабатывания, которое помещается в колесо.
+     */
+    public long spanMillis() {
+        return tickMillis * (1L << (WHEEL_BITS * LEVELS));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean contains(long id) {
+        return entries.containsKey(id);
+    }
+
+    /**
+     * Добавляет или переносит таймер. Просроченные таймеры сработают на следующем тике.
+     *
+     * @return false, если срок выходит за пределы колеса
+     */
+    public boolean schedule(long id, long deadlineMillis) {
+        long deadlineTick = Math.max(ceilDiv(deadlineMillis, tickMillis), currentTick + 1);
+        if (deadlineTick - currentTick >= (1L << (WHEEL_BITS * LEVELS))) {
+            cancel(id);
+            return false;
+        }
+
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            if (entry.deadlineTick == deadlineTick) {
+                return true;
+            }
+            unlink(entry);
+        } else {
+            entry = new Entry(id);
+            entries.put(id, entry);
+        }
+        entry.deadlineTick = deadlineTick;
+        place(entry);
+        return true;
+    }
+
+    public boolean cancel(long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        unlink(entry);
+        return true;
+    }
+
+    /**
+     * Продвигает колесо до указанного момента и возвращает сработавшие идентификаторы.
+     */
+    public List<Long> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<Long> expired = new ArrayList<>();
+
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+
+            int index = (int) (currentTick & WHEEL_MASK);
+            Entry entry = buckets[0][index];
+            buckets[0][index] = null;
+            while (entry != null) {
+                Entry next = entry.next;
+                entry.prev = null;
+                entry.next = null;
+                entry.level = -1;
+                entries.remove(entry.id);
+                expired.add(entry.id);
+                entry = next;
+            }
+        }
+        return expired;
+    }
+
+    // Переносит таймеры верхних уровней вниз, когда нижний уровень совершает полный оборот
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            int index = (int) ((currentTick >>> shift) & WHEEL_MASK);
+            Entry entry = buckets[level][index];
+            buckets[level][index] = null;
+            while (entry != null) {
+                Entry next = entry.next;
+                entry.prev = null;
+                entry.next = null;
+                place(entry);
+                entry = next;
+            }
+        }
+    }
+
+    private void place(Entry entry) {
+        long delta = entry.deadlineTick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (WHEEL_BITS * (level + 1)))) {
+            level++;
+        }
+        int index = (int) ((entry.deadlineTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+
+        entry.level = level;
+        entry.index = index;
+        entry.prev = null;
+        entry.next = buckets[level][index];
+        if (entry.next != null) {
+            entry.next.prev = entry;
+        }
+        buckets[level][index] = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.level < 0) {
+            return;
+        }
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            buckets[entry.level][entry.index] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+        entry.level = -1;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    private static final class Entry {
+        private final long id;
+        private long deadlineTick;
+        private int level = -1;
+        private int index;
+        private Entry prev;
+        private Entry next;
+
+        private Entry(long id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.notesystem.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Локальный кеш объектов удалённого хранилища на диске с вытеснением давно не читавшихся.
+ * Объекты неизменяемы, поэтому кеш никогда не проверяет актуальность копии.
+ * Одновременные промахи по одному ключу загружают объект один раз.
+ * Копия открывается под той же блокировкой, под которой вытеснение удаляет файлы, поэтому
+ * отдаваемый клиенту файл остаётся читаемым, даже если его вытеснят до конца отдачи.
+ */
+public class BlobCache {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobCache.class);
+
+    @FunctionalInterface
+    public interface Loader {
+        void load(Path target) throws IOException;
+    }
+
+    private final Path directory;
+    private final Path tempDirectory;
+    private final long maxBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Порядок доступа: первым вытесняется объект, который дольше всех не читали
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Path>> loading = new ConcurrentHashMap<>();
+    private long totalBytes;
+
+    public BlobCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.tempDirectory = this.directory.resolve(".tmp");
+        this.maxBytes = maxBytes;
+        Files.createDirectories(tempDirectory);
+        restore();
+    }
+
+    /**
+     * Открывает локальную копию, загружая объект при промахе. Копию нужно закрыть после отдачи.
+     */
+    public LocalFile open(String key, Loader loader) throws IOException {
+        Path path = directory.resolve(key);
+        while (true) {
+            LocalFile cached = openCached(key, path);
+            if (cached != null) {
+                return cached;
+            }
+            CompletableFuture<Path> mine = new CompletableFuture<>();
+            CompletableFuture<Path> running = loading.putIfAbsent(key, mine);
+            if (running == null) {
+                return load(key, path, loader, mine);
+            }
+            // Объект загружает другой поток; его копия открывается так же, как при попадании
+            await(running);
+        }
+    }
+
+    private LocalFile load(String key, Path path, Loader loader, CompletableFuture<Path> mine) throws IOException {
+        Path temp = Files.createTempFile(tempDirectory, "blob-", ".tmp");
+        try {
+            loader.load(temp);
+            long size = Files.size(temp);
+            Files.createDirectories(path.getParent());
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            LocalFile file;
+            lock.lock();
+            try {
+                add(key, size);
+                file = LocalFile.open(path, true);
+            } finally {
+                lock.unlock();
+            }
+            mine.complete(path);
+            return file;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key);
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private LocalFile openCached(String key, Path path) throws IOException {
+        lock.lock();
+        try {
+            if (entries.get(key) == null) {
+                return null;
+            }
+            try {
+                return LocalFile.open(path, true);
+            } catch (NoSuchFileException e) {
+                // Файл удалён в обход кеша: объект загружается заново
+                totalBytes -= entries.remove(key);
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(String key) {
+        lock.lock();
+        try {
+            Long size = entries.remove(key);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        } finally {
+            lock.unlock();
+        }
+        deleteQuietly(key);
+    }
+
+    private void add(String key, long size) {
+        lock.lock();
+        try {
+            Long previous = entries.put(key, size);
+            totalBytes += size - (previous != null ? previous : 0);
+            // Только что загруженный объект стоит в конце очереди и не вытесняется, даже если он больше лимита
+            Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && entries.size() > 1) {
+                Map.Entry<String, Long> entry = eldest.next();
+                totalBytes -= entry.getValue();
+                eldest.remove();
+                deleteQuietly(entry.getKey());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // После перезапуска кеш продолжает работать с уже скачанными файлами
+    private void restore() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(Files::isRegularFile)
+                    .filter(file -> !file.startsWith(tempDirectory))
+                    .forEach(file -> {
+                        try {
+                            add(directory.relativize(file).toString().replace('\\', '/'), Files.size(file));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            Files.deleteIfExists(directory.resolve(key));
+        } catch (IOException e) {
+            log.warn("Failed to delete cached blob {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static Path await(CompletableFuture<Path> running) throws IOException {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+}
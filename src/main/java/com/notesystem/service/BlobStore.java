@@ -0,0 +1,38 @@
+package com.notesystem.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Хранилище неизменяемых объектов по ключу вида ab/cd/name.ext.
+ * Объект под ключом не перезаписывается другим содержимым, поэтому реализации могут свободно кешировать его.
+ */
+public interface BlobStore {
+
+    boolean exists(String key) throws IOException;
+
+    /**
+     * Сохраняет содержимое локального файла под ключом. Реализация может переместить файл вместо копирования.
+     */
+    void put(String key, Path source, String contentType) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    /**
+     * Открытый локальный файл с содержимым объекта для отдачи клиенту, пустой результат означает отсутствие объекта.
+     * Файл закрывает вызывающий.
+     */
+    Optional<LocalFile> localFile(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Временная прямая ссылка на объект, если хранилище умеет отдавать его клиенту само.
+     */
+    default Optional<URI> downloadUrl(String key) {
+        return Optional.empty();
+    }
+}
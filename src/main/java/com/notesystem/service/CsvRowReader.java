@@ -0,0 +1,128 @@
+package com.notesystem.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый разбор CSV по RFC 4180: поля в кавычках могут содержать разделители и переводы строк.
+ * Разделитель (запятая или точка с запятой) определяется по первой строке.
+ * Длина поля и записи ограничена, поэтому незакрытая кавычка или огромное поле не копятся в памяти
+ * до конца файла, а прерывают импорт с ошибкой.
+ */
+public final class CsvRowReader {
+
+    private static final int DETECT_LIMIT = 64 * 1024;
+    // С запасом больше любого допустимого значения, чтобы длинное поле отклонила проверка записи
+    static final int MAX_FIELD_LENGTH = 64 * 1024;
+    static final int MAX_ROW_LENGTH = 1024 * 1024;
+    private static final char BOM = '\uFEFF';
+
+    private CsvRowReader() {
+    }
+
+    public static void read(InputStream in, ImportRowHandler handler) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), DETECT_LIMIT);
+        char delimiter = detectDelimiter(reader);
+
+        List<String> cells = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        long rowNumber = 1;
+        boolean quoted = false;
+        boolean afterQuote = false;
+        boolean rowHasData = false;
+        int rowLength = 0;
+        int c;
+        while ((c = reader.read()) != -1) {
+            char ch = (char) c;
+            if (++rowLength > MAX_ROW_LENGTH) {
+                throw new IllegalArgumentException("Запись " + rowNumber + " длиннее " + MAX_ROW_LENGTH
+                        + " символов, возможно, не закрыта кавычка");
+            }
+            if (quoted) {
+                if (ch == '"') {
+                    quoted = false;
+                    afterQuote = true;
+                } else {
+                    append(field, ch, rowNumber);
+                }
+                continue;
+            }
+            if (ch == '"') {
+                // Удвоенная кавычка внутри поля означает саму кавычку
+                if (afterQuote) {
+                    append(field, '"', rowNumber);
+                }
+                quoted = true;
+                afterQuote = false;
+                rowHasData = true;
+            } else if (ch == delimiter) {
+                cells.add(field.toString());
+                field.setLength(0);
+                afterQuote = false;
+                rowHasData = true;
+            } else if (ch == '\n' || ch == '\r') {
+                if (ch == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                if (rowHasData || field.length() > 0) {
+                    cells.add(field.toString());
+                    handler.row(rowNumber, cells);
+                }
+                rowNumber++;
+                cells.clear();
+                field.setLength(0);
+                afterQuote = false;
+                rowHasData = false;
+                rowLength = 0;
+            } else {
+                if (ch != BOM || rowNumber > 1 || rowHasData || field.length() > 0) {
+                    append(field, ch, rowNumber);
+                    rowHasData = true;
+                }
+                afterQuote = false;
+            }
+        }
+        if (rowHasData || field.length() > 0) {
+            cells.add(field.toString());
+            handler.row(rowNumber, cells);
+        }
+    }
+
+    private static void append(StringBuilder field, char ch, long rowNumber) {
+        if (field.length() >= MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("Запись " + rowNumber + ": поле длиннее " + MAX_FIELD_LENGTH
+                    + " символов, возможно, не закрыта кавычка");
+        }
+        field.append(ch);
+    }
+
+    // Точка с запятой используется, например, в CSV из Excel с русской локалью
+    private static char detectDelimiter(Reader reader) throws IOException {
+        reader.mark(DETECT_LIMIT);
+        int commas = 0;
+        int semicolons = 0;
+        boolean quoted = false;
+        for (int i = 0, c; i < DETECT_LIMIT && (c = reader.read()) != -1; i++) {
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && (c == '\n' || c == '\r')) {
+                break;
+            } else if (!quoted && c == ',') {
+                commas++;
+            } else if (!quoted && c == ';') {
+                semicolons++;
+            }
+        }
+        reader.reset();
+        return semicolons > commas ? ';' : ',';
+    }
+}
@@ -1,44 +1,79 @@
 package com.notesystem.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.notesystem.model.User;
 import com.notesystem.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import java.util.Optional;
+import java.time.Duration;
 
+/**
+ * Загрузка пользователей для аутентификации.
+ * Найденные пользователи кешируются по имени с ограничением размера и времени жизни;
+ * изменения статуса и роли сбрасывают запись сразу, см. {@link #evict(String)}.
+ */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final Cache<String, User> cache;
     private static final Logger log = LoggerFactory.getLogger(CustomUserDetailsService.class);
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${notes.security.user-cache.ttl}") Duration ttl,
+                                    @Value("${notes.security.user-cache.max-size}") long maxSize) {
         this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        log.info("Trying to load user: {}", username);
-
-        Optional<User> userOpt = userRepository.findByUsername(username);
-        if (userOpt.isEmpty()) {
-            log.error("User not found: {}", username);
+        // Отсутствующие имена не кешируются, поэтому только что зарегистрированный пользователь виден сразу
+        User cached = cache.get(username, key -> userRepository.findByUsername(key)
+                .map(CustomUserDetailsService::copyOf)
+                .orElse(null));
+        if (cached == null) {
+            log.debug("User not found: {}", username);
             throw new UsernameNotFoundException("Пользователь не найден: " + username);
         }
 
-        User user = userOpt.get();
-        log.info("Found user: {} with password hash: {}", username, user.getPassword());
-
-        if (!user.isActive()) {
-            log.warn("User is disabled: {}", username);
+        if (!cached.isActive()) {
+            log.debug("User is disabled: {}", username);
             throw new DisabledException("Пользователь деактивирован");
         }
 
-        return user; // Возвращаем кастомного пользователя
+        // Каждая сессия получает свой экземпляр, общая запись кеша не изменяется
+        return copyOf(cached);
+    }
+
+    /**
+     * Сбрасывает запись пользователя; вызывается после фиксации изменений статуса или роли.
+     */
+    public void evict(String username) {
+        cache.invalidate(username);
+    }
+
+    // Копия без коллекции заметок: в кеше не должно быть ссылок на сессию Hibernate
+    private static User copyOf(User user) {
+        User copy = new User(user.getUsername(), user.getPassword());
+        copy.setId(user.getId());
+        copy.setActive(user.isActive());
+        copy.setRole(user.getRole());
+        return copy;
     }
-}
\ No newline at end of file
+}
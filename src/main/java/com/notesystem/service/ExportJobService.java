@@ -0,0 +1,223 @@
+package com.notesystem.service;
+
+import com.notesystem.dto.ExportFormat;
+import com.notesystem.dto.ExportJob;
+import com.notesystem.model.User;
+import com.notesystem.repository.ExportJobRepository;
+import com.notesystem.repository.NoteExportRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервис фоновых заданий выгрузки.
+ * Запрос только ставит задание в очередь; файл формируется исполнителем,
+ * сохраняется через FileStorageService и хранится ограниченное время.
+ * Пока задание выполняется, heartbeat обновляется по таймеру, а не по мере записи строк:
+ * подсчёт строк, сборка XLSX и загрузка файла в хранилище тоже могут занимать минуты.
+ */
+@Service
+public class ExportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportJobService.class);
+    private static final int HISTORY_LIMIT = 20;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ExportJobRepository exportJobRepository;
+    private final NoteExportRepository noteExportRepository;
+    private final ExportService exportService;
+    private final FileStorageService fileStorageService;
+    private final ScheduledExecutorService heartbeats;
+    private final int clusterLimit;
+    private final int perUserActive;
+    private final Duration progressInterval;
+    private final Duration staleAfter;
+    private final int maxAttempts;
+    private final Duration retention;
+    private final int keepPerUser;
+
+    public ExportJobService(ExportJobRepository exportJobRepository,
+                            NoteExportRepository noteExportRepository,
+                            ExportService exportService,
+                            FileStorageService fileStorageService,
+                            @Value("${notes.export.jobs.cluster-limit}") int clusterLimit,
+                            @Value("${notes.export.jobs.per-user-active}") int perUserActive,
+                            @Value("${notes.export.jobs.progress-interval}") Duration progressInterval,
+                            @Value("${notes.export.jobs.stale-after}") Duration staleAfter,
+                            @Value("${notes.export.jobs.max-attempts}") int maxAttempts,
+                            @Value("${notes.export.jobs.retention}") Duration retention,
+                            @Value("${notes.export.jobs.keep-per-user}") int keepPerUser) {
+        this.exportJobRepository = exportJobRepository;
+        this.noteExportRepository = noteExportRepository;
+        this.exportService = exportService;
+        this.fileStorageService = fileStorageService;
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "export-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.clusterLimit = clusterLimit;
+        this.perUserActive = perUserActive;
+        this.progressInterval = progressInterval;
+        this.staleAfter = staleAfter;
+        this.maxAttempts = maxAttempts;
+        this.retention = retention;
+        this.keepPerUser = keepPerUser;
+    }
+
+    @Transactional
+    public long createJob(User user, ExportFormat format) {
+        if (exportJobRepository.countActiveByUser(user.getId()) >= perUserActive) {
+            throw new IllegalStateException("Слишком много незавершённых выгрузок, дождитесь их окончания");
+        }
+        return exportJobRepository.create(user.getId(), format);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ExportJob> getUserJobs(User user) {
+        return exportJobRepository.findByUser(user.getId(), HISTORY_LIMIT);
+    }
+
+    @Transactional(readOnly = true)
+    public ExportJob getUserJob(Long id, User user) {
+        return exportJobRepository.findByIdAndUser(id, user.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Выгрузка не найдена или доступ запрещен"));
+    }
+
+    /**
+     * Прямая ссылка на результат в объектном хранилище, если оно их выдаёт.
+     */
+    public Optional<URI> getResultUrl(ExportJob job) {
+        checkDone(job);
+        return fileStorageService.exportDownloadUrl(job.filePath());
+    }
+
+    /**
+     * Открытый файл результата; закрывает его вызывающий после отдачи.
+     */
+    public LocalFile getResult(ExportJob job) throws IOException {
+        checkDone(job);
+        return fileStorageService.exportFile(job.filePath())
+                .orElseThrow(() -> new IllegalStateException("Файл выгрузки не найден"));
+    }
+
+    /**
+     * Захватывает следующее задание из очереди, если в кластере выполняется меньше заданий, чем разрешено.
+     *
+     * @param claimToken токен, уникальный для каждого захвата
+     */
+    @Transactional
+    public Optional<ExportJob> claimNext(String claimToken) {
+        exportJobRepository.lockScheduling();
+        exportJobRepository.requeueStale(staleAfter, maxAttempts);
+        if (exportJobRepository.countRunning() >= clusterLimit) {
+            return Optional.empty();
+        }
+        return exportJobRepository.claimNext(claimToken);
+    }
+
+    /**
+     * Формирует файл задания. Вызывается исполнителем вне транзакции.
+     */
+    public void run(ExportJob job, String claimToken) {
+        String fileName = fileStorageService.newExportName(job.format().getExtension());
+        Heartbeat heartbeat = new Heartbeat(job.id(), claimToken);
+        ScheduledFuture<?> beating = heartbeats.scheduleWithFixedDelay(heartbeat,
+                progressInterval.toMillis(), progressInterval.toMillis(), TimeUnit.MILLISECONDS);
+        boolean stored = false;
+        try {
+            exportJobRepository.setTotalRows(job.id(), noteExportRepository.countByUser(job.userId()));
+            long size = fileStorageService.storeExport(fileName, job.format().getContentType(),
+                    out -> exportService.exportNotes(job.userId(), job.format(), out, heartbeat::report));
+            stored = true;
+            beating.cancel(false);
+            if (!exportJobRepository.complete(job.id(), claimToken, heartbeat.rows, fileName, size)) {
+                // Задание было перехвачено, пока файл дописывался, результат не нужен
+                deleteQuietly(fileName);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Export job {} failed: {}", job.id(), e.getMessage());
+            if (stored) {
+                deleteQuietly(fileName);
+            }
+            String error = String.valueOf(e.getMessage());
+            exportJobRepository.fail(job.id(), claimToken,
+                    error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        } finally {
+            beating.cancel(false);
+        }
+    }
+
+    /**
+     * Удаляет завершённые задания старше срока хранения и сверх лимита на пользователя вместе с файлами.
+     */
+    public int cleanup() {
+        List<String> files = exportJobRepository.deleteExpired(retention, keepPerUser);
+        files.stream().filter(path -> path != null).forEach(this::deleteQuietly);
+        return files.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+    }
+
+    private static void checkDone(ExportJob job) {
+        if (job.status() != ExportJob.Status.DONE) {
+            throw new IllegalStateException("Выгрузка ещё не готова");
+        }
+    }
+
+    // Файлы, созданные до переноса выгрузок в общее хранилище, лежали в локальном каталоге и удаляются вместе с ним
+    private void deleteQuietly(String fileName) {
+        try {
+            fileStorageService.deleteExport(fileName);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Failed to delete export file {}: {}", fileName, e.getMessage());
+        }
+    }
+
+    // Обновляет heartbeat и прогресс по таймеру и прерывает выгрузку, если задание отобрано
+    private final class Heartbeat implements Runnable {
+        private final Long jobId;
+        private final String claimToken;
+        private volatile long rows;
+        private volatile boolean lost;
+
+        private Heartbeat(Long jobId, String claimToken) {
+            this.jobId = jobId;
+            this.claimToken = claimToken;
+        }
+
+        void report(long rowsWritten) {
+            rows = rowsWritten;
+            if (lost) {
+                throw new IllegalStateException("Задание выгрузки передано другому исполнителю");
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!exportJobRepository.updateProgress(jobId, claimToken, rows)) {
+                    lost = true;
+                }
+            } catch (RuntimeException e) {
+                // Исключение отменило бы дальнейшие запуски таймера; следующий запуск повторит запись
+                log.warn("Export job {} heartbeat failed: {}", jobId, e.getMessage());
+            }
+        }
+    }
+}
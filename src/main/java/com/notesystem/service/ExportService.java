@@ -1,36 +1,63 @@
 package com.notesystem.service;
 
-import com.notesystem.model.Note;
-import com.notesystem.model.User;
-import com.notesystem.repository.NoteRepository;
+import com.notesystem.dto.ExportColumn;
+import com.notesystem.dto.ExportFormat;
+import com.notesystem.repository.NoteExportRepository;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.OptionalDouble;
+import java.util.function.LongConsumer;
 
 /**
- * Сервис для экспорта заметок в формат Excel.
- * Генерирует XLSX-файл со списком заметок пользователя.
+ * Сервис для экспорта заметок в Excel, CSV и NDJSON.
+ * Генерирует XLSX-файл со списком заметок пользователя в потоковом режиме:
+ * в памяти держится только окно последних строк, остальные сбрасываются во временный файл.
+ * Заметки читаются короткими запросами по порциям без общей транзакции,
+ * поэтому запись медленному клиенту не держит соединение с базой.
  */
 @Service
 public class ExportService {
 
-    private final NoteRepository noteRepository;
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    // Ширина столбцов оценивается по первым строкам и далее по каждой сотой
+    private static final int SAMPLE_HEAD_ROWS = 1000;
+    private static final int SAMPLE_EVERY = 100;
+    private static final int MAX_COLUMN_CHARS = 80;
 
-    public ExportService(NoteRepository noteRepository) {
-        this.noteRepository = noteRepository;
+    private final NoteExportRepository noteExportRepository;
+    private final int rowWindow;
+
+    public ExportService(NoteExportRepository noteExportRepository,
+                         @Value("${notes.export.excel.row-window}") int rowWindow) {
+        this.noteExportRepository = noteExportRepository;
+        this.rowWindow = rowWindow;
     }
 
-    public void exportNotesToExcel(User user, OutputStream outputStream) throws IOException {
-        List<Note> notes = noteRepository.findByUser(user);
+    /**
+     * Выгружает заметки пользователя в поток по мере чтения порций.
+     * Поток закрывается по завершении, что дописывает хвост gzip, если вызывающий код обернул поток в сжатие.
+     *
+     * @param progress получает число записанных строк после каждой строки
+     */
+    public void exportNotes(Long userId, ExportFormat format, OutputStream outputStream,
+                            LongConsumer progress) throws IOException {
+        if (format == ExportFormat.EXCEL) {
+            writeExcel(userId, outputStream, progress);
+        } else {
+            writeText(userId, format, outputStream, progress);
+        }
+    }
 
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Notes");
+    private void writeExcel(Long userId, OutputStream outputStream, LongConsumer progress) throws IOException {
+        ExportColumn[] columns = ExportColumn.values();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        workbook.setCompressTempFiles(true);
+        try (outputStream) {
+            SXSSFSheet sheet = workbook.createSheet("Notes");
 
             // Стиль для заголовков
             CellStyle headerStyle = workbook.createCellStyle();
@@ -39,41 +66,56 @@ public class ExportService {
             headerStyle.setFont(headerFont);
 
             // Заголовки столбцов
+            int[] widths = new int[columns.length];
             Row headerRow = sheet.createRow(0);
-            String[] columns = {"ID", "Заголовок", "Содержание", "Дата создания", "Статус", "Напоминание", "Изображение"};
-
             for (int i = 0; i < columns.length; i++) {
                 Cell cell = headerRow.createCell(i);
-                cell.setCellValue(columns[i]);
+                cell.setCellValue(columns[i].getHeader());
                 cell.setCellStyle(headerStyle);
+                widths[i] = columns[i].getHeader().length();
             }
 
-            // Заполнение данными
-            int rowNum = 1;
-            for (Note note : notes) {
-                Row row = sheet.createRow(rowNum++);
-
-                row.createCell(0).setCellValue(note.getId());
-                row.createCell(1).setCellValue(note.getTitle());
-                row.createCell(2).setCellValue(note.getContent());
-                row.createCell(3).setCellValue(note.getCreatedDate().format(DATE_FORMATTER));
-                row.createCell(4).setCellValue(note.isCompleted() ? "Завершено" : "В процессе");
-
-                if (note.getReminder() != null) {
-                    row.createCell(5).setCellValue(note.getReminder().format(DATETIME_FORMATTER));
-                } else {
-                    row.createCell(5).setCellValue("");
+            // Заполнение данными по мере чтения порций
+            int[] rowNum = {1};
+            noteExportRepository.streamByUser(userId, note -> {
+                Row row = sheet.createRow(rowNum[0]);
+                boolean sample = rowNum[0] <= SAMPLE_HEAD_ROWS || rowNum[0] % SAMPLE_EVERY == 0;
+                for (int i = 0; i < columns.length; i++) {
+                    String value = columns[i].format(note);
+                    OptionalDouble number = columns[i].numericValue(note);
+                    if (number.isPresent()) {
+                        row.createCell(i).setCellValue(number.getAsDouble());
+                    } else {
+                        row.createCell(i).setCellValue(value);
+                    }
+                    if (sample) {
+                        widths[i] = Math.max(widths[i], value.length());
+                    }
                 }
+                progress.accept(rowNum[0]++);
+            });
 
-                row.createCell(6).setCellValue(note.getImagePath() != null ? note.getImagePath() : "");
-            }
-
-            // Автоматическое изменение ширины столбцов
+            // Ширина по выборке вместо autoSizeColumn, который измеряет каждую ячейку
             for (int i = 0; i < columns.length; i++) {
-                sheet.autoSizeColumn(i);
+                sheet.setColumnWidth(i, (Math.min(widths[i], MAX_COLUMN_CHARS) + 2) * 256);
             }
 
             workbook.write(outputStream);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private void writeText(Long userId, ExportFormat format, OutputStream outputStream,
+                           LongConsumer progress) throws IOException {
+        try (TextExportWriter writer = new TextExportWriter(outputStream, format)) {
+            writer.writeHeader();
+            long[] rows = {0};
+            noteExportRepository.streamByUser(userId, note -> {
+                writer.writeRow(note);
+                progress.accept(++rows[0]);
+            });
         }
     }
-}
\ No newline at end of file
+}
@@ -1,38 +1,250 @@
 // FileStorageService.java
 package com.notesystem.service;
 
+import com.notesystem.repository.StoredBlobRepository;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
+/**
+ * Хранилище изображений и файлов выгрузки.
+ * Файлы сохраняются через {@link BlobStore} — локальный каталог или S3-совместимое хранилище.
+ * Выгрузки лежат там же под префиксом exports/, поэтому результат, сформированный одной репликой,
+ * можно скачать через любую другую.
+ */
 @Service
 public class FileStorageService {
 
-    private final Path fileStorageLocation;
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,10}");
+    // Сегменты ключа не начинаются с точки: служебные каталоги и выход наверх недоступны
+    private static final Pattern KEY = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*(/[A-Za-z0-9_-][A-Za-z0-9._-]*)*");
+    // Изображения хранятся в каталогах вида ab/cd/, поэтому префикс выгрузок с ними не пересекается
+    private static final String EXPORT_PREFIX = "exports/";
 
-    public FileStorageService(@Value("${notes.storage.upload-dir}") String uploadDir) throws IOException {
-        this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
-        Files.createDirectories(this.fileStorageLocation);
+    private final BlobStore blobStore;
+    private final Path tempLocation;
+    private final DataSize maxImageSize;
+    private final StoredBlobRepository storedBlobRepository;
+
+    public FileStorageService(BlobStore blobStore,
+                              @Value("${notes.storage.upload-dir}") String uploadDir,
+                              @Value("${notes.storage.max-image-size}") DataSize maxImageSize,
+                              StoredBlobRepository storedBlobRepository) throws IOException {
+        this.blobStore = blobStore;
+        // Для локального хранилища временные файлы лежат в том же разделе, и перенос на место атомарен
+        this.tempLocation = Paths.get(uploadDir).toAbsolutePath().normalize().resolve(".tmp");
+        this.maxImageSize = maxImageSize;
+        this.storedBlobRepository = storedBlobRepository;
+        Files.createDirectories(this.tempLocation);
     }
 
-    public String store(MultipartFile file) throws IOException {
-        String originalName = file.getOriginalFilename();
+    /**
+     * Сохраняет изображение под именем, производным от SHA-256 содержимого, в каталоге вида ab/cd/.
+     * Одинаковые файлы хранятся в одном экземпляре. Вызывается вне транзакции: запись о файле фиксируется
+     * сразу и без второго соединения, а ссылку затем учитывает {@link #retain(String)} в транзакции заметки.
+     * Если ссылка так и не появится, файл по истечении отсрочки удалит сборщик.
+     */
+    public String stage(MultipartFile file) throws IOException {
+        // Лимит изображения настраивается отдельно от общего лимита multipart и проверяется здесь
+        if (file.getSize() > maxImageSize.toBytes()) {
+            throw new IllegalArgumentException("Размер изображения превышает " + maxImageSize.toMegabytes() + " МБ");
+        }
 
-        // Фикс: обработка файлов без расширения
-        String fileName = UUID.randomUUID().toString();
-        if (originalName != null && originalName.contains(".")) {
-            String extension = originalName.substring(originalName.lastIndexOf("."));
-            fileName += extension;
+        // Содержимое читается потоком: хеш считается по пути во временный файл, целиком в память оно не попадает
+        Path temp = Files.createTempFile(tempLocation, "upload-", ".tmp");
+        try {
+            MessageDigest digest = newDigest();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String fileName = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash
+                    + extension(file.getOriginalFilename());
+
+            // Если сборщик как раз удаляет этот файл, резервирование дождётся конца удаления
+            storedBlobRepository.reserve(fileName, Files.size(temp));
+
+            if (!blobStore.exists(fileName)) {
+                blobStore.put(fileName, temp, contentType(fileName));
+            }
+            return fileName;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Учитывает ссылку на сохранённое изображение в текущей транзакции.
+     */
+    public void retain(String fileName) {
+        storedBlobRepository.retain(fileName);
+    }
+
+    /**
+     * Снимает ссылку на изображение в текущей транзакции; файл без ссылок позже удалит сборщик.
+     */
+    public void release(String fileName) {
+        storedBlobRepository.release(fileName);
+    }
+
+    /**
+     * Снимает ссылки на несколько изображений одним запросом; повторы снимают ссылку несколько раз.
+     */
+    public void releaseAll(Collection<String> fileNames) {
+        if (!fileNames.isEmpty()) {
+            storedBlobRepository.releaseAll(fileNames);
+        }
+    }
+
+    /**
+     * Локальный файл изображения для отдачи без копирования через память приложения.
+     */
+    public Optional<LocalFile> imageFile(String fileName) throws IOException {
+        return blobStore.localFile(checkKey(fileName));
+    }
+
+    /**
+     * Прямая временная ссылка на изображение в объектном хранилище, если она поддерживается.
+     */
+    public Optional<URI> imageDownloadUrl(String fileName) {
+        return blobStore.downloadUrl(checkKey(fileName));
+    }
+
+    public boolean imageExists(String fileName) throws IOException {
+        return blobStore.exists(checkKey(fileName));
+    }
+
+    public void deleteImage(String fileName) throws IOException {
+        blobStore.delete(checkKey(fileName));
+    }
+
+    public InputStream openImage(String fileName) throws IOException {
+        return blobStore.open(checkKey(fileName));
+    }
+
+    /**
+     * Имя производного файла рядом с оригиналом, например abc.png и вариант 128 дают abc_128.jpg.
+     */
+    public String variantName(String fileName, String variant, String extension) {
+        int dot = fileName.lastIndexOf('.');
+        String base = dot > 0 ? fileName.substring(0, dot) : fileName;
+        return base + "_" + variant + "." + extension;
+    }
+
+    /**
+     * Записывает производное изображение; объект появляется в хранилище, только если запись завершилась успешно.
+     */
+    public void writeImage(String fileName, ContentWriter writer) throws IOException {
+        String key = checkKey(fileName);
+        Path temp = Files.createTempFile(tempLocation, "variant-", ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                writer.write(out);
+            }
+            blobStore.put(key, temp, contentType(key));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public String newExportName(String extension) {
+        return EXPORT_PREFIX + UUID.randomUUID() + "." + extension;
+    }
+
+    /**
+     * Формирует файл выгрузки во временном файле и переносит его в хранилище целиком,
+     * поэтому недописанный результат никому не виден.
+     *
+     * @return размер файла в байтах
+     */
+    public long storeExport(String fileName, String contentType, ContentWriter writer) throws IOException {
+        String key = checkExportKey(fileName);
+        Path temp = Files.createTempFile(tempLocation, "export-", ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                writer.write(out);
+            }
+            long size = Files.size(temp);
+            blobStore.put(key, temp, contentType);
+            return size;
+        } finally {
+            Files.deleteIfExists(temp);
         }
+    }
+
+    /**
+     * Локальный файл выгрузки; для объектного хранилища он скачивается в локальный кеш.
+     */
+    public Optional<LocalFile> exportFile(String fileName) throws IOException {
+        return blobStore.localFile(checkExportKey(fileName));
+    }
+
+    public Optional<URI> exportDownloadUrl(String fileName) {
+        return blobStore.downloadUrl(checkExportKey(fileName));
+    }
+
+    public void deleteExport(String fileName) throws IOException {
+        blobStore.delete(checkExportKey(fileName));
+    }
 
-        Path targetLocation = this.fileStorageLocation.resolve(fileName);
-        Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+    private static String checkExportKey(String fileName) {
+        if (fileName == null || !fileName.startsWith(EXPORT_PREFIX)) {
+            throw new IllegalArgumentException("Недопустимое имя файла выгрузки");
+        }
+        return checkKey(fileName);
+    }
+
+    private static String checkKey(String fileName) {
+        if (fileName == null || !KEY.matcher(fileName).matches()) {
+            throw new IllegalArgumentException("Недопустимое имя файла");
+        }
         return fileName;
     }
-}
\ No newline at end of file
+
+    private static String contentType(String fileName) {
+        return MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    private static String extension(String originalName) {
+        // Фикс: обработка файлов без расширения
+        if (originalName == null || !originalName.contains(".")) {
+            return "";
+        }
+        String extension = originalName.substring(originalName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return EXTENSION.matcher(extension).matches() ? "." + extension : "";
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.notesystem.service;
+
+import java.util.List;
+
+/**
+ * Получатель строк импортируемого файла.
+ * Список ячеек переиспользуется читателем и действителен только во время вызова.
+ */
+@FunctionalInterface
+public interface ImportRowHandler {
+
+    /**
+     * @param rowNumber номер записи в файле, начиная с единицы (заголовок — первая запись)
+     */
+    void row(long rowNumber, List<String> cells);
+}
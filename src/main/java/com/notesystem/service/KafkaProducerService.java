@@ -1,26 +1,50 @@
 package com.notesystem.service;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.notesystem.dto.OutboxEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Сервис для отправки сообщений в Kafka.
- * Используется для отправки уведомлений о напоминаниях.
+ * Отправляет уже сериализованные события асинхронно и учитывает результаты в метриках.
  */
 @Service
 public class KafkaProducerService {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final String topic;
+    private static final Logger log = LoggerFactory.getLogger(KafkaProducerService.class);
 
-    public KafkaProducerService(KafkaTemplate<String, String> kafkaTemplate,
-                                @Value("${notes.telegram.topic}") String topic) {
+    private final KafkaTemplate<Long, byte[]> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public KafkaProducerService(KafkaTemplate<Long, byte[]> kafkaTemplate, MeterRegistry meterRegistry) {
         this.kafkaTemplate = kafkaTemplate;
-        this.topic = topic;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public CompletableFuture<SendResult<Long, byte[]>> send(String topic, Long key, byte[] payload) {
+        return kafkaTemplate.send(topic, key, payload).whenComplete((result, ex) -> {
+            if (ex != null) {
+                meterRegistry.counter("notes.kafka.messages.failed", "topic", topic).increment();
+                log.error("Failed to send message with key {} to {}: {}", key, topic, ex.getMessage());
+            } else {
+                meterRegistry.counter("notes.kafka.messages.sent", "topic", topic).increment();
+            }
+        });
     }
 
-    public void sendReminder(String message) {
-        kafkaTemplate.send(topic, message);
+    /**
+     * Отправляет пакет событий; возвращённый future завершается, когда брокер подтвердит все записи.
+     */
+    public CompletableFuture<Void> sendAll(List<OutboxEvent> events) {
+        CompletableFuture<?>[] futures = events.stream()
+                .map(event -> send(event.topic(), event.key(), event.payload()))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures);
     }
-}
\ No newline at end of file
+}
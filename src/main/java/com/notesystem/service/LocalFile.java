@@ -0,0 +1,34 @@
+package com.notesystem.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Локальная копия объекта хранилища, уже открытая для чтения.
+ * Открытый канал читается до конца, даже если кеш тем временем вытеснит и удалит файл,
+ * поэтому содержимое отдаётся через канал, а не повторным открытием по пути.
+ *
+ * @param evictable файл может быть удалён кешем после открытия, и передавать путь в sendfile контейнера нельзя
+ */
+public record LocalFile(Path path, FileChannel channel, long size, long lastModified, boolean evictable)
+        implements Closeable {
+
+    static LocalFile open(Path path, boolean evictable) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new LocalFile(path, channel, channel.size(), Files.getLastModifiedTime(path).toMillis(), evictable);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,209 @@
+package com.notesystem.service;
+
+import com.notesystem.dto.NoteField;
+import com.notesystem.dto.NoteOperation;
+import com.notesystem.dto.NoteOperationResult;
+import com.notesystem.dto.NotePage;
+import com.notesystem.dto.NoteRequest;
+import com.notesystem.model.Note;
+import com.notesystem.model.User;
+import com.notesystem.repository.NoteApiRepository;
+import com.notesystem.repository.NoteRepository;
+import com.notesystem.repository.UserRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Операции JSON API заметок поверх {@link NoteService}.
+ * Пакет операций выполняется в одной транзакции: заметки загружаются одним запросом,
+ * изменения сбрасываются в базу одним flush, а ошибки отдельных операций
+ * возвращаются в результатах и не отменяют остальные.
+ */
+@Service
+public class NoteApiService {
+
+    private static final Base64.Encoder CURSOR_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final NoteService noteService;
+    private final NoteRepository noteRepository;
+    private final NoteApiRepository noteApiRepository;
+    private final UserRepository userRepository;
+    private final Validator validator;
+    private final int pageSize;
+    private final int maxPageSize;
+    private final int maxBatchSize;
+
+    public NoteApiService(NoteService noteService,
+                          NoteRepository noteRepository,
+                          NoteApiRepository noteApiRepository,
+                          UserRepository userRepository,
+                          Validator validator,
+                          @Value("${notes.api.page-size}") int pageSize,
+                          @Value("${notes.api.max-page-size}") int maxPageSize,
+                          @Value("${notes.api.max-batch-size}") int maxBatchSize) {
+        this.noteService = noteService;
+        this.noteRepository = noteRepository;
+        this.noteApiRepository = noteApiRepository;
+        this.userRepository = userRepository;
+        this.validator = validator;
+        this.pageSize = pageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Страница заметок по возрастанию id. Курсор — непрозрачная строка с id последней заметки страницы,
+     * поэтому созданные между запросами заметки попадают в конец обхода, а не сдвигают страницы.
+     */
+    @Transactional(readOnly = true)
+    public NotePage list(Long userId, Set<NoteField> fields, String cursor, Integer limit) {
+        int size = limit != null ? Math.max(1, Math.min(limit, maxPageSize)) : pageSize;
+        List<Map<String, Object>> items = new ArrayList<>(
+                noteApiRepository.findPage(userId, fields, decodeCursor(cursor), size + 1));
+        boolean more = items.size() > size;
+        if (more) {
+            items.remove(size);
+        }
+        String next = more ? encodeCursor((Long) items.get(items.size() - 1).get(NoteField.ID.getName())) : null;
+        return new NotePage(items, next);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> get(Long userId, Long id, Set<NoteField> fields) {
+        return noteApiRepository.findOne(userId, id, fields);
+    }
+
+    @Transactional
+    public NoteOperationResult apply(Long userId, NoteOperation operation) {
+        return batch(userId, List.of(operation)).get(0);
+    }
+
+    /**
+     * Выполняет операции по порядку и возвращает результат каждой в том же порядке.
+     */
+    @Transactional
+    public List<NoteOperationResult> batch(Long userId, List<NoteOperation> operations) {
+        if (operations.isEmpty() || operations.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Пакет должен содержать от 1 до " + maxBatchSize + " операций");
+        }
+        User user = userRepository.getReferenceById(userId);
+        Set<Long> ids = operations.stream()
+                .filter(Objects::nonNull)
+                .map(NoteOperation::id)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Note> notes = new HashMap<>();
+        if (!ids.isEmpty()) {
+            noteRepository.findByUserAndIdIn(user, ids).forEach(note -> notes.put(note.getId(), note));
+        }
+
+        List<NoteOperationResult> results = new ArrayList<>(operations.size());
+        Map<Integer, Note> written = new HashMap<>();
+        for (NoteOperation operation : operations) {
+            // Операции проверяются заранее: исключение из NoteService пометило бы к откату всю транзакцию
+            NoteOperationResult result = check(operation, notes);
+            Note note = result == null ? execute(operation, user, notes) : null;
+            if (note != null) {
+                written.put(results.size(), note);
+            }
+            results.add(result);
+        }
+
+        // Версии назначаются при сбросе изменений, поэтому читаются после общего flush
+        noteRepository.flush();
+        written.forEach((index, note) -> results.set(index, operations.get(index).op() == NoteOperation.Type.CREATE
+                ? NoteOperationResult.created(note.getId(), note.getVersion())
+                : NoteOperationResult.updated(note.getId(), note.getVersion())));
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                results.set(i, NoteOperationResult.deleted(operations.get(i).id()));
+            }
+        }
+        return results;
+    }
+
+    // Возвращает ошибку операции или null, если её можно выполнять
+    private NoteOperationResult check(NoteOperation operation, Map<Long, Note> notes) {
+        if (operation == null || operation.op() == null) {
+            return NoteOperationResult.invalid(null, "Не указана операция");
+        }
+        if (operation.op() != NoteOperation.Type.CREATE) {
+            if (operation.id() == null) {
+                return NoteOperationResult.invalid(null, "Не указан id заметки");
+            }
+            Note note = notes.get(operation.id());
+            if (note == null) {
+                return NoteOperationResult.notFound(operation.id());
+            }
+            if (operation.version() != null && !operation.version().equals(note.getVersion())) {
+                return NoteOperationResult.conflict(note.getId(), note.getVersion());
+            }
+        }
+        if (operation.op() != NoteOperation.Type.DELETE) {
+            if (operation.note() == null) {
+                return NoteOperationResult.invalid(operation.id(), "Не переданы данные заметки");
+            }
+            Set<ConstraintViolation<NoteRequest>> violations = validator.validate(operation.note());
+            if (!violations.isEmpty()) {
+                return NoteOperationResult.invalid(operation.id(), violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+            }
+        }
+        return null;
+    }
+
+    // Возвращает созданную или изменённую заметку; удаление возвращает null
+    private Note execute(NoteOperation operation, User user, Map<Long, Note> notes) {
+        NoteRequest request = operation.note();
+        switch (operation.op()) {
+            case CREATE -> {
+                return noteService.createNote(toNote(request), user, null, request.getReminder());
+            }
+            case UPDATE -> {
+                // Обновление заменяет заметку целиком: без reminder напоминание снимается
+                return noteService.replaceNote(operation.id(), user, toNote(request), request.getReminder());
+            }
+            default -> {
+                noteService.deleteNote(operation.id(), user);
+                notes.remove(operation.id());
+                return null;
+            }
+        }
+    }
+
+    private static Note toNote(NoteRequest request) {
+        Note note = new Note(request.getTitle(), request.getContent());
+        note.setCompleted(request.isCompleted());
+        return note;
+    }
+
+    private static String encodeCursor(Long id) {
+        return CURSOR_ENCODER.encodeToString(String.valueOf(id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный курсор", e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.notesystem.service;
+
+import com.notesystem.model.Note;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Component;
+import java.util.Collection;
+
+/**
+ * Сбрасывает заметки во втором уровне кеша Hibernate после изменений SQL-запросами в обход сессии.
+ * Изменения через сущности Hibernate отражает в кеше сам.
+ */
+@Component
+public class NoteCacheEvictor {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public NoteCacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void evict(Long noteId) {
+        entityManagerFactory.getCache().evict(Note.class, noteId);
+    }
+
+    public void evictAll(Collection<Long> noteIds) {
+        Cache cache = entityManagerFactory.getCache();
+        for (Long noteId : noteIds) {
+            cache.evict(Note.class, noteId);
+        }
+    }
+}
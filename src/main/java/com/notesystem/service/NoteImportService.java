@@ -0,0 +1,249 @@
+package com.notesystem.service;
+
+import com.notesystem.dto.ExportColumn;
+import com.notesystem.dto.ImportResult;
+import com.notesystem.dto.ImportedNote;
+import com.notesystem.dto.NoteRequest;
+import com.notesystem.model.User;
+import com.notesystem.repository.NoteImportRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Импорт заметок из CSV и XLSX.
+ * Файл читается потоково, строки проверяются по ограничениям NoteRequest
+ * и вставляются пакетами JDBC; ошибочные строки пропускаются и попадают в отчёт.
+ * Импорт выполняется в одной транзакции.
+ */
+@Service
+public class NoteImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    // Заголовки столбцов: имена полей и подписи из выгрузки, чтобы выгруженный файл можно было загрузить обратно
+    private static final Map<String, ExportColumn> HEADERS = Arrays.stream(ExportColumn.values())
+            .flatMap(column -> List.of(Map.entry(normalize(column.getField()), column),
+                    Map.entry(normalize(column.getHeader()), column)).stream())
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (first, second) -> first));
+    private static final Set<String> COMPLETED_VALUES = Set.of("true", "1", "да", "yes", "завершено");
+
+    private static final DateTimeFormatter[] DATE_FORMATS = {
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd.MM.yyyy")
+    };
+    private static final DateTimeFormatter[] DATETIME_FORMATS = {
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"),
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME,
+            DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")
+    };
+
+    private final NoteImportRepository noteImportRepository;
+    private final NoteSearchIndex noteSearchIndex;
+    private final Validator validator;
+    private final int batchSize;
+
+    public NoteImportService(NoteImportRepository noteImportRepository,
+                             NoteSearchIndex noteSearchIndex,
+                             Validator validator,
+                             @Value("${notes.import.batch-size}") int batchSize) {
+        this.noteImportRepository = noteImportRepository;
+        this.noteSearchIndex = noteSearchIndex;
+        this.validator = validator;
+        this.batchSize = batchSize;
+    }
+
+    @Transactional
+    public ImportResult importNotes(User user, MultipartFile file) throws IOException {
+        String name = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase(Locale.ROOT) : "";
+        ImportSession session = new ImportSession(user.getId());
+
+        if (name.endsWith(".xlsx")) {
+            // Событийной модели POI нужен файл с произвольным доступом к zip-архиву
+            Path temp = Files.createTempFile("notes-import-", ".xlsx");
+            try {
+                file.transferTo(temp);
+                XlsxRowReader.read(temp.toFile(), session);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } else if (name.endsWith(".csv") || name.endsWith(".txt")) {
+            try (InputStream in = file.getInputStream()) {
+                CsvRowReader.read(in, session);
+            }
+        } else {
+            throw new IllegalArgumentException("Поддерживаются файлы CSV и XLSX");
+        }
+        session.flush();
+
+        if (session.imported > 0) {
+            // Индекс подсказок пользователя перестраивается при следующем обращении
+            Long userId = user.getId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    noteSearchIndex.invalidate(userId);
+                }
+            });
+        }
+        return new ImportResult(session.imported, session.failed, session.errors);
+    }
+
+    private static String normalize(String header) {
+        return header.trim().toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    private static String cell(List<String> cells, int index) {
+        if (index < 0 || index >= cells.size()) {
+            return null;
+        }
+        String value = cells.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static LocalDate parseDate(String value) {
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(value, format);
+            } catch (DateTimeParseException ignored) {
+                // пробуем следующий формат
+            }
+        }
+        throw new IllegalArgumentException("Некорректная дата: " + value);
+    }
+
+    private static LocalDateTime parseDateTime(String value) {
+        for (DateTimeFormatter format : DATETIME_FORMATS) {
+            try {
+                return LocalDateTime.parse(value, format);
+            } catch (DateTimeParseException ignored) {
+                // пробуем следующий формат
+            }
+        }
+        throw new IllegalArgumentException("Некорректное напоминание: " + value);
+    }
+
+    /**
+     * Состояние одного импорта: сопоставление столбцов, текущий пакет и отчёт об ошибках.
+     */
+    private final class ImportSession implements ImportRowHandler {
+        private final Long userId;
+        private final List<ImportedNote> batch = new ArrayList<>(batchSize);
+        private final List<ImportResult.RowError> errors = new ArrayList<>();
+        private int title = -1;
+        private int content = -1;
+        private int createdDate = -1;
+        private int status = -1;
+        private int reminder = -1;
+        private boolean headerRead;
+        private long imported;
+        private long failed;
+
+        private ImportSession(Long userId) {
+            this.userId = userId;
+        }
+
+        @Override
+        public void row(long rowNumber, List<String> cells) {
+            if (!headerRead) {
+                readHeader(cells);
+                return;
+            }
+            try {
+                ImportedNote note = parse(cells);
+                batch.add(note);
+                if (batch.size() >= batchSize) {
+                    flush();
+                }
+            } catch (IllegalArgumentException e) {
+                reject(rowNumber, e.getMessage());
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            long[] ids = noteImportRepository.allocateIds(batch.size());
+            noteImportRepository.insertAll(userId, batch, ids);
+            imported += batch.size();
+            batch.clear();
+        }
+
+        private void readHeader(List<String> cells) {
+            headerRead = true;
+            for (int i = 0; i < cells.size(); i++) {
+                ExportColumn column = HEADERS.get(normalize(cells.get(i)));
+                if (column == null) {
+                    if (normalize(cells.get(i)).equals("completed")) {
+                        status = i;
+                    }
+                    continue;
+                }
+                switch (column) {
+                    case TITLE -> title = i;
+                    case CONTENT -> content = i;
+                    case CREATED_DATE -> createdDate = i;
+                    case STATUS -> status = i;
+                    case REMINDER -> reminder = i;
+                    default -> {
+                        // идентификатор и изображение при импорте не переносятся
+                    }
+                }
+            }
+            if (title < 0) {
+                throw new IllegalArgumentException("В файле нет столбца с заголовком (title или «Заголовок»)");
+            }
+        }
+
+        private ImportedNote parse(List<String> cells) {
+            NoteRequest request = new NoteRequest();
+            request.setTitle(cell(cells, title));
+            request.setContent(cell(cells, content));
+            String statusValue = cell(cells, status);
+            request.setCompleted(statusValue != null && COMPLETED_VALUES.contains(normalize(statusValue)));
+            String reminderValue = cell(cells, reminder);
+            request.setReminder(reminderValue != null ? parseDateTime(reminderValue) : null);
+
+            Set<ConstraintViolation<NoteRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                throw new IllegalArgumentException(violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+            }
+
+            String createdValue = cell(cells, createdDate);
+            return new ImportedNote(request.getTitle(), request.getContent(),
+                    createdValue != null ? parseDate(createdValue) : LocalDate.now(),
+                    request.isCompleted(), request.getReminder());
+        }
+
+        private void reject(long rowNumber, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportResult.RowError(rowNumber, message));
+            }
+        }
+    }
+}
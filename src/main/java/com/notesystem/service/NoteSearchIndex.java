@@ -0,0 +1,482 @@
+package com.notesystem.service;
+
+import com.notesystem.dto.NoteIndexRow;
+import com.notesystem.dto.NoteSuggestion;
+import com.notesystem.model.Note;
+import com.notesystem.model.User;
+import com.notesystem.repository.NoteRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Встроенный инвертированный индекс заметок для подсказок при вводе.
+ * Индекс строится отдельно для каждого пользователя при первом обращении,
+ * обновляется инкрементально при изменении заметок и вытесняет давно неиспользуемых
+ * пользователей при превышении лимитов памяти.
+ */
+@Component
+public class NoteSearchIndex {
+
+    private final NoteRepository noteRepository;
+    private final int maxUsers;
+    private final long maxPostings;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Long, UserIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+    // Размер indexes для метрики, обновляется под блокировкой
+    private final AtomicInteger loadedUsers = new AtomicInteger();
+
+    public NoteSearchIndex(NoteRepository noteRepository,
+                           @Value("${notes.search.index.max-users}") int maxUsers,
+                           @Value("${notes.search.index.max-postings}") long maxPostings,
+                           MeterRegistry meterRegistry) {
+        this.noteRepository = noteRepository;
+        this.maxUsers = maxUsers;
+        this.maxPostings = maxPostings;
+        Gauge.builder("notes.search.index.users", loadedUsers, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Подсказки по началу запроса: последнее слово ищется по префиксу,
+     * слова длиннее трёх символов допускают опечатки.
+     */
+    public List<NoteSuggestion> suggest(User user, String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        UserIndex index = acquire(user);
+        List<NoteSuggestion> result = index.search(tokens, limit);
+        enforceLimits();
+        return result;
+    }
+
+    /**
+     * Обновляет индекс после сохранения заметки, если индекс пользователя загружен.
+     */
+    public void onNoteSaved(Note note) {
+        UserIndex index = peek(note.getUser().getId());
+        if (index != null) {
+            index.upsert(note.getId(), note.getTitle(), note.getContent(), note.isCompleted());
+            enforceLimits();
+        }
+    }
+
+    public void onNoteDeleted(Long userId, Long noteId) {
+        UserIndex index = peek(userId);
+        if (index != null) {
+            index.delete(noteId);
+        }
+    }
+
+    /**
+     * Сбрасывает индекс пользователя, например после массового изменения заметок.
+     */
+    public void invalidate(Long userId) {
+        lock.lock();
+        try {
+            indexes.remove(userId);
+            loadedUsers.set(indexes.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private UserIndex peek(Long userId) {
+        lock.lock();
+        try {
+            return indexes.get(userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private UserIndex acquire(User user) {
+        UserIndex index;
+        boolean builder = false;
+        lock.lock();
+        try {
+            index = indexes.get(user.getId());
+            if (index == null) {
+                index = new UserIndex();
+                indexes.put(user.getId(), index);
+                loadedUsers.set(indexes.size());
+                builder = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (builder) {
+            // Построение вне глобальной блокировки; изменения, пришедшие во время загрузки, откладываются
+            try {
+                index.build(noteRepository.findIndexRowsByUser(user));
+            } catch (RuntimeException e) {
+                invalidate(user.getId());
+                index.fail();
+                throw e;
+            }
+        } else {
+            index.awaitReady();
+        }
+        return index;
+    }
+
+    // Вытеснение давно неиспользуемых пользователей по числу индексов и объёму списков вхождений
+    private void enforceLimits() {
+        lock.lock();
+        try {
+            long postings = 0;
+            for (UserIndex index : indexes.values()) {
+                postings += index.postingCount();
+            }
+            Iterator<UserIndex> it = indexes.values().iterator();
+            while (it.hasNext() && indexes.size() > 1 && (indexes.size() > maxUsers || postings > maxPostings)) {
+                UserIndex eldest = it.next();
+                postings -= eldest.postingCount();
+                it.remove();
+            }
+            loadedUsers.set(indexes.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Допустимое число опечаток в зависимости от длины слова
+    private static int maxEdits(String token) {
+        if (token.length() < 4) {
+            return 0;
+        }
+        return token.length() < 8 ? 1 : 2;
+    }
+
+    /**
+     * Расстояние Левенштейна с ранним выходом при превышении порога.
+     */
+    static int boundedDistance(CharSequence a, CharSequence b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * Индекс заметок одного пользователя.
+     * Документы нумеруются последовательно, удалённые помечаются в битовой маске
+     * и вычищаются при уплотнении.
+     */
+    private static final class UserIndex {
+
+        private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
+        private final CountDownLatch ready = new CountDownLatch(1);
+        private final TreeMap<String, Postings> terms = new TreeMap<>();
+        private final Map<Long, Integer> docByNote = new HashMap<>();
+        private final BitSet deleted = new BitSet();
+        private List<Runnable> pendingOps = new ArrayList<>();
+        private volatile boolean failed;
+        private long[] noteIds = new long[16];
+        private String[] titles = new String[16];
+        private BitSet completed = new BitSet();
+        private int docCount;
+        private int deletedCount;
+        // Меняется под rwLock, а читается при вытеснении под глобальной блокировкой
+        private volatile long postingCount;
+
+        void build(List<NoteIndexRow> rows) {
+            rwLock.writeLock().lock();
+            try {
+                for (NoteIndexRow row : rows) {
+                    add(row.id(), row.title(), row.content(), row.completed());
+                }
+                // Изменения, зафиксированные во время загрузки, применяются поверх снимка.
+                // Поле сбрасывается до применения, иначе повторный upsert снова попадёт в тот же список
+                List<Runnable> buffered = pendingOps;
+                pendingOps = null;
+                buffered.forEach(Runnable::run);
+            } finally {
+                rwLock.writeLock().unlock();
+            }
+            ready.countDown();
+        }
+
+        void fail() {
+            failed = true;
+            ready.countDown();
+        }
+
+        void awaitReady() {
+            try {
+                ready.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Ожидание построения индекса прервано", e);
+            }
+            if (failed) {
+                throw new IllegalStateException("Не удалось построить поисковый индекс");
+            }
+        }
+
+        long postingCount() {
+            return postingCount;
+        }
+
+        void upsert(Long noteId, String title, String content, boolean isCompleted) {
+            rwLock.writeLock().lock();
+            try {
+                if (pendingOps != null) {
+                    pendingOps.add(() -> upsert(noteId, title, content, isCompleted));
+                    return;
+                }
+                remove(noteId);
+                add(noteId, title, content, isCompleted);
+            } finally {
+                rwLock.writeLock().unlock();
+            }
+        }
+
+        void delete(Long noteId) {
+            rwLock.writeLock().lock();
+            try {
+                if (pendingOps != null) {
+                    pendingOps.add(() -> delete(noteId));
+                    return;
+                }
+                remove(noteId);
+            } finally {
+                rwLock.writeLock().unlock();
+            }
+        }
+
+        List<NoteSuggestion> search(List<String> tokens, int limit) {
+            rwLock.readLock().lock();
+            try {
+                BitSet matches = null;
+                for (int i = 0; i < tokens.size(); i++) {
+                    BitSet tokenDocs = match(tokens.get(i), i == tokens.size() - 1);
+                    if (matches == null) {
+                        matches = tokenDocs;
+                    } else {
+                        matches.and(tokenDocs);
+                    }
+                    if (matches.isEmpty()) {
+                        return List.of();
+                    }
+                }
+                matches.andNot(deleted);
+
+                // Сначала недавно добавленные или изменённые заметки
+                List<NoteSuggestion> result = new ArrayList<>(Math.min(limit, matches.cardinality()));
+                for (int doc = matches.previousSetBit(docCount - 1);
+                     doc >= 0 && result.size() < limit;
+                     doc = matches.previousSetBit(doc - 1)) {
+                    result.add(new NoteSuggestion(noteIds[doc], titles[doc], completed.get(doc)));
+                }
+                return result;
+            } finally {
+                rwLock.readLock().unlock();
+            }
+        }
+
+        private BitSet match(String token, boolean prefix) {
+            BitSet docs = new BitSet(docCount);
+            NavigableMap<String, Postings> candidates = prefix
+                    ? terms.subMap(token, true, token + Character.MAX_VALUE, false)
+                    : terms.subMap(token, true, token, true);
+            candidates.values().forEach(postings -> postings.addTo(docs));
+            if (!docs.isEmpty()) {
+                return docs;
+            }
+
+            // Терпимость к опечаткам: перебираем только слова с той же первой буквой
+            int edits = maxEdits(token);
+            if (edits == 0) {
+                return docs;
+            }
+            String first = token.substring(0, 1);
+            for (Map.Entry<String, Postings> entry
+                    : terms.subMap(first, true, first + Character.MAX_VALUE, false).entrySet()) {
+                String term = entry.getKey();
+                if (fuzzyMatch(token, term, prefix, edits)) {
+                    entry.getValue().addTo(docs);
+                }
+            }
+            return docs;
+        }
+
+        private static boolean fuzzyMatch(String token, String term, boolean prefix, int edits) {
+            if (!prefix) {
+                return boundedDistance(token, term, edits) <= edits;
+            }
+            int from = Math.max(1, token.length() - edits);
+            int to = Math.min(term.length(), token.length() + edits);
+            for (int length = from; length <= to; length++) {
+                if (boundedDistance(token, term.subSequence(0, length), edits) <= edits) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void add(Long noteId, String title, String content, boolean isCompleted) {
+            if (docCount == noteIds.length) {
+                noteIds = Arrays.copyOf(noteIds, docCount * 2);
+                titles = Arrays.copyOf(titles, docCount * 2);
+            }
+            int doc = docCount++;
+            noteIds[doc] = noteId;
+            titles[doc] = title;
+            completed.set(doc, isCompleted);
+            docByNote.put(noteId, doc);
+
+            List<String> tokens = tokenize(title);
+            tokens.addAll(tokenize(content));
+            for (String token : tokens) {
+                if (terms.computeIfAbsent(token, t -> new Postings()).add(doc)) {
+                    postingCount++;
+                }
+            }
+        }
+
+        private void remove(Long noteId) {
+            Integer doc = docByNote.remove(noteId);
+            if (doc == null) {
+                return;
+            }
+            deleted.set(doc);
+            titles[doc] = null;
+            deletedCount++;
+            if (deletedCount > 64 && deletedCount > docCount - deletedCount) {
+                compact();
+            }
+        }
+
+        // Перенумеровывает живые документы и удаляет из списков вхождений удалённые
+        private void compact() {
+            int[] remap = new int[docCount];
+            int live = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (deleted.get(doc)) {
+                    remap[doc] = -1;
+                } else {
+                    remap[doc] = live;
+                    noteIds[live] = noteIds[doc];
+                    titles[live] = titles[doc];
+                    completed.set(live, completed.get(doc));
+                    live++;
+                }
+            }
+            completed.clear(live, docCount);
+            Arrays.fill(titles, live, docCount, null);
+            docByNote.replaceAll((noteId, doc) -> remap[doc]);
+
+            postingCount = 0;
+            Iterator<Postings> it = terms.values().iterator();
+            while (it.hasNext()) {
+                Postings postings = it.next();
+                postings.remap(remap);
+                if (postings.size == 0) {
+                    it.remove();
+                } else {
+                    postingCount += postings.size;
+                }
+            }
+            docCount = live;
+            deletedCount = 0;
+            deleted.clear();
+        }
+    }
+
+    /**
+     * Список вхождений слова: возрастающие номера документов в массиве примитивов.
+     */
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private int size;
+
+        boolean add(int doc) {
+            if (size > 0 && docs[size - 1] == doc) {
+                return false;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+            return true;
+        }
+
+        void addTo(BitSet target) {
+            for (int i = 0; i < size; i++) {
+                target.set(docs[i]);
+            }
+        }
+
+        void remap(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc >= 0) {
+                    docs[kept++] = doc;
+                }
+            }
+            size = kept;
+            if (docs.length > 8 && size < docs.length / 4) {
+                docs = Arrays.copyOf(docs, Math.max(2, size * 2));
+            }
+        }
+    }
+}
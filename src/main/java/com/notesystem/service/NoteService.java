@@ -1,18 +1,42 @@
 package com.notesystem.service;
 
+import com.notesystem.dto.ClaimedReminder;
+import com.notesystem.dto.CursorPage;
+import com.notesystem.dto.DueReminder;
+import com.notesystem.dto.NoteCursor;
+import com.notesystem.dto.NoteListItem;
+import com.notesystem.dto.NoteSort;
+import com.notesystem.dto.NoteSuggestion;
+import com.notesystem.dto.ReminderEvent;
 import com.notesystem.model.Note;
 import com.notesystem.model.User;
+import com.notesystem.repository.NoteBulkRepository;
+import com.notesystem.repository.NoteListRepository;
 import com.notesystem.repository.NoteRepository;
-import org.springframework.data.domain.Page;
+import com.notesystem.repository.NoteSearchRepository;
+import com.notesystem.repository.ReminderClaimRepository;
+import com.notesystem.repository.UserRepository;
+import com.notesystem.scheduler.ReminderDispatcher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
 
 /**
  * Сервис для управления заметками пользователей.
@@ -21,101 +45,387 @@ import java.util.UUID;
 @Service
 public class NoteService {
 
+    private static final LocalDateTime REMINDER_EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
     private final NoteRepository noteRepository;
+    private final UserRepository userRepository;
+    private final NoteListRepository noteListRepository;
+    private final NoteBulkRepository noteBulkRepository;
+    private final NoteSearchRepository noteSearchRepository;
     private final FileStorageService fileStorageService;
-    private final KafkaProducerService kafkaProducerService;
+    private final OutboxService outboxService;
+    private final ReminderDispatcher reminderDispatcher;
+    private final ReminderClaimRepository reminderClaimRepository;
+    private final NoteSearchIndex noteSearchIndex;
+    private final ThumbnailService thumbnailService;
+    private final NoteCacheEvictor noteCacheEvictor;
 
     public NoteService(NoteRepository noteRepository,
+                       UserRepository userRepository,
+                       NoteListRepository noteListRepository,
+                       NoteBulkRepository noteBulkRepository,
+                       NoteSearchRepository noteSearchRepository,
                        FileStorageService fileStorageService,
-                       KafkaProducerService kafkaProducerService) {
+                       OutboxService outboxService,
+                       ReminderDispatcher reminderDispatcher,
+                       ReminderClaimRepository reminderClaimRepository,
+                       NoteSearchIndex noteSearchIndex,
+                       ThumbnailService thumbnailService,
+                       NoteCacheEvictor noteCacheEvictor) {
         this.noteRepository = noteRepository;
+        this.userRepository = userRepository;
+        this.noteListRepository = noteListRepository;
+        this.noteBulkRepository = noteBulkRepository;
+        this.noteSearchRepository = noteSearchRepository;
         this.fileStorageService = fileStorageService;
-        this.kafkaProducerService = kafkaProducerService;
+        this.outboxService = outboxService;
+        this.reminderDispatcher = reminderDispatcher;
+        this.reminderClaimRepository = reminderClaimRepository;
+        this.noteSearchIndex = noteSearchIndex;
+        this.thumbnailService = thumbnailService;
+        this.noteCacheEvictor = noteCacheEvictor;
     }
 
+    /**
+     * Сохраняет загруженное изображение до транзакции заметки, чтобы запрос не держал два соединения.
+     *
+     * @return путь для createNote/updateNote или null, если изображение не передано
+     */
+    public String stageImage(MultipartFile image) {
+        if (image == null || image.isEmpty()) {
+            return null;
+        }
+        try {
+            return fileStorageService.stage(image);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка сохранения изображения", e);
+        }
+    }
+
+    /**
+     * @param imagePath путь, полученный из {@link #stageImage(MultipartFile)}, или null
+     */
     @Transactional
-    public Note createNote(Note note, User user, MultipartFile image, LocalDateTime reminder) {
+    public Note createNote(Note note, User user, String imagePath, LocalDateTime reminder) {
         note.setUser(user);
 
-        if (image != null && !image.isEmpty()) {
-            try {
-                String imagePath = fileStorageService.store(image);
-                note.setImagePath(imagePath);
-            } catch (IOException e) {
-                throw new RuntimeException("Ошибка сохранения изображения", e);
-            }
+        if (imagePath != null) {
+            fileStorageService.retain(imagePath);
+            note.setImagePath(imagePath);
         }
 
         if (reminder != null) {
             note.setReminder(reminder);
-            sendReminderNotification(note);
         }
 
-        return noteRepository.save(note);
+        Note saved = noteRepository.save(note);
+        if (reminder != null) {
+            sendReminderNotification(saved);
+        }
+        afterCommit(() -> {
+            reminderDispatcher.track(saved);
+            noteSearchIndex.onNoteSaved(saved);
+            if (saved.getImagePath() != null) {
+                thumbnailService.submit(saved.getId(), saved.getImagePath());
+            }
+        });
+        return saved;
     }
 
     private void sendReminderNotification(Note note) {
-        String message = String.format("Напоминание: %s в %s",
-                note.getTitle(),
-                note.getReminder().toString());
-        kafkaProducerService.sendReminder(message);
+        outboxService.publishReminder(ReminderEvent.scheduled(
+                note.getId(), note.getUser().getId(), note.getTitle(), note.getReminder()));
     }
 
+    /**
+     * Страница списка заметок с keyset-пагинацией, без OFFSET и подсчёта общего числа записей.
+     */
     @Transactional(readOnly = true)
-    public Page<Note> getUserNotes(User user, String query, Pageable pageable) {
-        if (query == null || query.isEmpty()) {
-            return noteRepository.findByUser(user, pageable);
+    public CursorPage<NoteListItem> getUserNotes(User user, NoteSort sort, Sort.Direction direction,
+                                         NoteCursor cursor, int size) {
+        List<NoteListItem> notes = new ArrayList<>(
+                noteListRepository.findPage(user.getId(), sort, direction, cursor, size + 1));
+        boolean more = notes.size() > size;
+        if (more) {
+            notes.remove(size);
         }
-        return noteRepository.searchByUser(user, query, pageable);
+        boolean backward = cursor != null && cursor.backward();
+        if (backward) {
+            Collections.reverse(notes);
+        }
+        if (notes.isEmpty()) {
+            return new CursorPage<>(notes, null, null);
+        }
+
+        // При движении назад лишняя строка означает наличие предыдущей страницы, а следующая есть всегда
+        boolean hasNext = backward || more;
+        boolean hasPrev = backward ? more : cursor != null;
+        String next = hasNext ? NoteCursor.after(sort, direction, notes.get(notes.size() - 1)).encode() : null;
+        String prev = hasPrev ? NoteCursor.before(sort, direction, notes.get(0)).encode() : null;
+        return new CursorPage<>(notes, next, prev);
+    }
+
+    /**
+     * Счётчик изменений заметок пользователя: растёт при каждом изменении, которое видно на страницах.
+     * Чтение по первичному ключу позволяет ответить 304, не запрашивая сами заметки.
+     */
+    @Transactional(readOnly = true)
+    public long getNotesVersion(User user) {
+        return userRepository.findNotesVersion(user.getId());
+    }
+
+    /**
+     * Полнотекстовый поиск с ранжированием. Возвращает срез без подсчёта общего числа совпадений.
+     */
+    @Transactional(readOnly = true)
+    public Slice<NoteListItem> searchNotes(User user, String query, Pageable pageable) {
+        List<NoteListItem> hits = noteSearchRepository.search(user.getId(), query,
+                pageable.getPageSize() + 1, pageable.getOffset());
+        boolean hasNext = hits.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? hits.subList(0, pageable.getPageSize()) : hits, pageable, hasNext);
+    }
+
+    /**
+     * Подсказки при вводе из встроенного индекса, без обращения к базе после его построения.
+     */
+    @Transactional(readOnly = true)
+    public List<NoteSuggestion> suggestNotes(User user, String query, int limit) {
+        return noteSearchIndex.suggest(user, query, limit);
     }
 
+    /**
+     * @param imagePath путь, полученный из {@link #stageImage(MultipartFile)}, или null, если изображение не меняется
+     */
     @Transactional
-    public Note updateNote(Long id, Note updatedNote, MultipartFile image, LocalDateTime reminder) {
-        Note note = noteRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Заметка не найдена"));
+    public Note updateNote(Long id, User user, Note updatedNote, String imagePath, LocalDateTime reminder) {
+        return update(id, user, updatedNote, imagePath, reminder, false);
+    }
+
+    /**
+     * Полная замена заметки для PUT в API: отсутствующее напоминание снимается, изображение не меняется.
+     */
+    @Transactional
+    public Note replaceNote(Long id, User user, Note updatedNote, LocalDateTime reminder) {
+        return update(id, user, updatedNote, null, reminder, true);
+    }
+
+    // Для формы редактирования пустое напоминание означает «оставить прежнее», для API — «снять»
+    private Note update(Long id, User user, Note updatedNote, String imagePath, LocalDateTime reminder,
+                        boolean replaceReminder) {
+        Note note = findOwned(id, user)
+                .orElseThrow(() -> new IllegalArgumentException("Заметка не найдена или доступ запрещен"));
 
         note.setTitle(updatedNote.getTitle());
         note.setContent(updatedNote.getContent());
         note.setCompleted(updatedNote.isCompleted());
 
-        if (image != null && !image.isEmpty()) {
-            try {
-                String imagePath = fileStorageService.store(image);
-                note.setImagePath(imagePath);
-            } catch (IOException e) {
-                throw new RuntimeException("Ошибка сохранения изображения", e);
+        boolean imageReplaced = imagePath != null;
+        if (imageReplaced) {
+            String previous = note.getImagePath();
+            fileStorageService.retain(imagePath);
+            if (previous != null) {
+                fileStorageService.release(previous);
             }
+            note.setImagePath(imagePath);
+            // Копии прежнего изображения больше не подходят
+            note.setImageThumbSmall(null);
+            note.setImageThumbLarge(null);
         }
 
-        if (reminder != null) {
+        if (reminder != null || replaceReminder) {
             note.setReminder(reminder);
-            sendReminderNotification(note);
         }
 
-        return noteRepository.save(note);
+        Note saved = noteRepository.save(note);
+        if (reminder != null) {
+            sendReminderNotification(saved);
+        }
+        afterCommit(() -> {
+            reminderDispatcher.track(saved);
+            noteSearchIndex.onNoteSaved(saved);
+            if (imageReplaced) {
+                thumbnailService.submit(saved.getId(), saved.getImagePath());
+            }
+        });
+        return saved;
     }
 
     @Transactional
-    public void deleteNote(Long id) {
-        noteRepository.deleteById(id);
+    public void deleteNote(Long id, User user) {
+        findOwned(id, user).ifPresent(note -> {
+            Long userId = note.getUser().getId();
+            noteRepository.delete(note);
+            if (note.getImagePath() != null) {
+                fileStorageService.release(note.getImagePath());
+            }
+            afterCommit(() -> {
+                reminderDispatcher.cancel(id);
+                noteSearchIndex.onNoteDeleted(userId, id);
+            });
+        });
     }
 
     @Transactional
-    public void toggleNoteCompletion(Long id) {
-        Note note = noteRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Заметка не найдена"));
+    public void toggleNoteCompletion(Long id, User user) {
+        Note note = findOwned(id, user)
+                .orElseThrow(() -> new IllegalArgumentException("Заметка не найдена или доступ запрещен"));
         note.setCompleted(!note.isCompleted());
-        noteRepository.save(note);
+        Note saved = noteRepository.save(note);
+        afterCommit(() -> {
+            reminderDispatcher.track(saved);
+            noteSearchIndex.onNoteSaved(saved);
+        });
+    }
+
+    /**
+     * Отмечает заметки пользователя завершёнными или возобновляет их одним запросом.
+     *
+     * @return число заметок, статус которых изменился
+     */
+    @Transactional
+    public int setNotesCompleted(User user, Collection<Long> ids, boolean completed) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<DueReminder> changed = noteBulkRepository.setCompleted(user.getId(), ids, completed);
+        afterCommit(() -> {
+            noteCacheEvictor.evictAll(changed.stream().map(DueReminder::noteId).toList());
+            for (DueReminder note : changed) {
+                if (completed || note.reminder() == null) {
+                    reminderDispatcher.cancel(note.noteId());
+                } else {
+                    reminderDispatcher.schedule(note.noteId(), note.reminder());
+                }
+            }
+            // Индекс хранит статус заметок; перестроить его дешевле, чем читать тексты всех изменённых
+            if (!changed.isEmpty()) {
+                noteSearchIndex.invalidate(user.getId());
+            }
+        });
+        return changed.size();
+    }
+
+    /**
+     * Снимает напоминания с заметок пользователя одним запросом.
+     *
+     * @return число заметок, у которых было напоминание
+     */
+    @Transactional
+    public int clearReminders(User user, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Long> cleared = noteBulkRepository.clearReminders(user.getId(), ids);
+        afterCommit(() -> {
+            noteCacheEvictor.evictAll(cleared);
+            cleared.forEach(reminderDispatcher::cancel);
+        });
+        return cleared.size();
+    }
+
+    /**
+     * Удаляет заметки пользователя одним запросом и снимает ссылки на их изображения;
+     * файлы без ссылок позже удалит сборщик.
+     *
+     * @return число удалённых заметок
+     */
+    @Transactional
+    public int deleteNotes(User user, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<NoteBulkRepository.DeletedNote> deleted = noteBulkRepository.delete(user.getId(), ids);
+        fileStorageService.releaseAll(deleted.stream()
+                .map(NoteBulkRepository.DeletedNote::imagePath)
+                .filter(Objects::nonNull)
+                .toList());
+        afterCommit(() -> deleted.forEach(note -> {
+            noteCacheEvictor.evict(note.id());
+            reminderDispatcher.cancel(note.id());
+            noteSearchIndex.onNoteDeleted(user.getId(), note.id());
+        }));
+        return deleted.size();
     }
 
     @Transactional(readOnly = true)
     public Note getNoteByIdAndUser(Long id, User user) {
-        return noteRepository.findByIdAndUser(id, user)
+        // Поиск по id, а не запрос с условием на владельца, чтобы повторные просмотры брали заметку из кеша
+        return findOwned(id, user)
                 .orElseThrow(() -> new IllegalArgumentException("Заметка не найдена или доступ запрещен"));
     }
 
+    /**
+     * Проверяет, что изображение или его копия относится к заметке пользователя.
+     */
+    @Transactional(readOnly = true)
+    public boolean isImageOfUser(User user, String imagePath) {
+        return noteRepository.existsImageOfUser(user, imagePath);
+    }
+
+    /**
+     * Возвращает страницу напоминаний, срок которых наступает не позже указанного момента.
+     */
     @Transactional(readOnly = true)
-    public List<Note> getPendingReminders() {
-        return noteRepository.findByReminderIsNotNullAndCompletedFalse();
+    public List<DueReminder> getRemindersDueBefore(LocalDateTime until, DueReminder after, int limit) {
+        LocalDateTime afterReminder = after != null ? after.reminder() : REMINDER_EPOCH;
+        Long afterId = after != null ? after.noteId() : 0L;
+        return noteRepository.findRemindersDueBefore(until, afterReminder, afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Арендует пакет наступивших напоминаний для отправки текущим экземпляром.
+     */
+    @Transactional
+    public List<ClaimedReminder> claimDueReminders(String owner, LocalDateTime now,
+                                                   LocalDateTime leaseUntil, int limit) {
+        return reminderClaimRepository.claimDue(owner, now, leaseUntil, limit);
+    }
+
+    /**
+     * Снимает наступившие напоминания и записывает дайджесты в outbox в одной транзакции,
+     * поэтому напоминание не может быть потеряно между шагами. В дайджесты попадают только
+     * реально снятые напоминания: изменённые пользователем после захвата или перехваченные
+     * другим экземпляром не отправляются.
+     *
+     * @param digests напоминания, сгруппированные по получателю
+     * @return число записанных дайджестов
+     */
+    @Transactional
+    public int deliverReminders(String owner, List<List<ClaimedReminder>> digests) {
+        List<ClaimedReminder> reminders = digests.stream().flatMap(List::stream).toList();
+        List<Long> deliveredIds = reminderClaimRepository.markDelivered(owner, reminders);
+        Set<Long> delivered = new HashSet<>(deliveredIds);
+
+        List<ReminderEvent> events = new ArrayList<>(digests.size());
+        for (List<ClaimedReminder> digest : digests) {
+            List<ClaimedReminder> sent = digest.stream()
+                    .filter(reminder -> delivered.contains(reminder.noteId()))
+                    .toList();
+            if (!sent.isEmpty()) {
+                events.add(ReminderEvent.digest(sent.get(0).userId(), sent));
+            }
+        }
+        outboxService.publishReminders(events);
+        afterCommit(() -> noteCacheEvictor.evictAll(deliveredIds));
+        return events.size();
+    }
+
+    // Заметка ищется по id, чтобы повторно взять её из контекста персистентности, и сверяется с владельцем
+    private Optional<Note> findOwned(Long id, User user) {
+        return noteRepository.findById(id)
+                .filter(note -> note.getUser().getId().equals(user.getId()));
+    }
+
+    // Изменения колеса таймеров и поискового индекса применяются только после успешной фиксации транзакции
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
\ No newline at end of file
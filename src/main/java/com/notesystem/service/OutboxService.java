@@ -0,0 +1,88 @@
+package com.notesystem.service;
+
+import com.notesystem.config.ReminderEventSerializer;
+import com.notesystem.dto.OutboxEvent;
+import com.notesystem.dto.ReminderEvent;
+import com.notesystem.repository.OutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Сервис транзакционного outbox.
+ * События сохраняются в той же транзакции, что и изменения заметок,
+ * а в Kafka их переносит фоновый ретранслятор.
+ */
+@Service
+public class OutboxService {
+
+    private final OutboxRepository outboxRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final ReminderEventSerializer reminderSerializer = new ReminderEventSerializer();
+    private final String reminderTopic;
+    private final Duration sendTimeout;
+
+    public OutboxService(OutboxRepository outboxRepository,
+                         KafkaProducerService kafkaProducerService,
+                         @Value("${notes.telegram.topic}") String reminderTopic,
+                         @Value("${notes.outbox.send-timeout}") Duration sendTimeout) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.reminderTopic = reminderTopic;
+        this.sendTimeout = sendTimeout;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishReminder(ReminderEvent event) {
+        outboxRepository.append(reminderTopic, event.userId(), reminderSerializer.serialize(reminderTopic, event));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishReminders(List<ReminderEvent> events) {
+        outboxRepository.appendAll(events.stream()
+                .map(event -> new OutboxEvent(null, reminderTopic, event.userId(),
+                        reminderSerializer.serialize(reminderTopic, event), null))
+                .toList());
+    }
+
+    /**
+     * Переносит в Kafka один упорядоченный пакет и удаляет его из outbox.
+     * При ошибке отправки транзакция откатывается, и пакет будет повторён.
+     *
+     * @return число отправленных записей
+     */
+    @Transactional
+    public int relayBatch(int limit) {
+        if (!outboxRepository.tryLockRelay()) {
+            return 0;
+        }
+        List<OutboxEvent> batch = outboxRepository.findBatch(limit);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            kafkaProducerService.sendAll(batch).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ретрансляция outbox прервана", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Не удалось отправить пакет outbox в Kafka", e);
+        }
+
+        outboxRepository.deleteAll(batch);
+        return batch.size();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<OutboxRepository.Backlog> getBacklog() {
+        return outboxRepository.findBacklog();
+    }
+}
@@ -0,0 +1,93 @@
+package com.notesystem.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * HTTP-клиент Bot API Telegram.
+ * Использует один HttpClient с пулом keep-alive соединений, таймауты
+ * и ограниченное число повторов с экспоненциальной задержкой и джиттером.
+ */
+public class TelegramBotClient {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient httpClient;
+    private final URI sendMessageUri;
+    private final Duration requestTimeout;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+
+    public TelegramBotClient(String apiUrl, String botToken, Duration connectTimeout, Duration requestTimeout,
+                             int maxAttempts, Duration baseBackoff, Duration maxBackoff) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.sendMessageUri = URI.create(apiUrl + "/bot" + botToken + "/sendMessage");
+        this.requestTimeout = requestTimeout;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    public void sendMessage(String chatId, String text) throws InterruptedException {
+        String form = "chat_id=" + URLEncoder.encode(chatId, StandardCharsets.UTF_8)
+                + "&text=" + URLEncoder.encode(text, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder(sendMessageUri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+
+        for (int attempt = 1; ; attempt++) {
+            long retryAfterMillis;
+            try {
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                int status = response.statusCode();
+                if (status == 200) {
+                    return;
+                }
+                if (status != 429 && status < 500) {
+                    throw new TelegramDeliveryException("Telegram отклонил сообщение: HTTP " + status
+                            + " " + response.body());
+                }
+                if (attempt >= maxAttempts) {
+                    throw new TelegramDeliveryException("Telegram недоступен: HTTP " + status);
+                }
+                retryAfterMillis = status == 429 ? parseRetryAfterMillis(response.body()) : 0;
+            } catch (IOException e) {
+                if (attempt >= maxAttempts) {
+                    throw new TelegramDeliveryException("Ошибка соединения с Telegram", e);
+                }
+                retryAfterMillis = 0;
+            }
+            Thread.sleep(Math.max(retryAfterMillis, backoffMillis(attempt)));
+        }
+    }
+
+    // Полный джиттер: случайная задержка от нуля до экспоненциальной границы
+    private long backoffMillis(int attempt) {
+        long bound = Math.min(maxBackoff.toMillis(), baseBackoff.toMillis() << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    private static long parseRetryAfterMillis(String body) {
+        try {
+            JsonNode retryAfter = MAPPER.readTree(body).path("parameters").path("retry_after");
+            return retryAfter.isNumber() ? retryAfter.asLong() * 1000 : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
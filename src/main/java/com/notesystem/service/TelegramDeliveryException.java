@@ -0,0 +1,17 @@
+package com.notesystem.service;
+
+/**
+ * Сообщение не удалось доставить в Telegram после всех попыток.
+ */
+public class TelegramDeliveryException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TelegramDeliveryException(String message) {
+        super(message);
+    }
+
+    public TelegramDeliveryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,39 +1,167 @@
 package com.notesystem.service;
 
+import com.notesystem.config.ReminderEventSerializer;
+import com.notesystem.config.TaskExecutors;
+import com.notesystem.dto.ReminderEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Сервис для отправки уведомлений в Telegram.
- * Обрабатывает сообщения из Kafka и отправляет их в Telegram.
+ * Получает сообщения из Kafka пакетами и отправляет их параллельно по чатам
+ * с учётом лимитов Bot API. Недоставленные сообщения уходят в dead-letter топик.
  */
 @Service
 public class TelegramNotificationService {
 
-    private final RestTemplate restTemplate;
-    private final String botToken;
+    private static final Logger log = LoggerFactory.getLogger(TelegramNotificationService.class);
+    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    // Предельная длина текста сообщения в Bot API
+    private static final int MAX_MESSAGE_LENGTH = 4096;
+
+    private final TelegramBotClient botClient;
+    private final TelegramRateLimiter rateLimiter;
+    private final KafkaProducerService kafkaProducerService;
+    private final ReminderEventSerializer serializer = new ReminderEventSerializer();
+    private final ExecutorService senderExecutor;
     private final String chatId;
+    private final String deadLetterTopic;
+    private final Counter deliveredCounter;
+    private final Counter deadLetterCounter;
 
     public TelegramNotificationService(
-            @Value("${notes.telegram.bot-token}") String botToken,
-            @Value("${notes.telegram.chat-id}") String chatId
+            TelegramBotClient botClient,
+            TelegramRateLimiter rateLimiter,
+            KafkaProducerService kafkaProducerService,
+            MeterRegistry meterRegistry,
+            @Value("${notes.telegram.chat-id}") String chatId,
+            @Value("${notes.telegram.dead-letter-topic}") String deadLetterTopic,
+            @Value("${notes.telegram.sender-threads}") int senderThreads,
+            @Value("${notes.telegram.rate.chat-per-second}") double chatPerSecond,
+            @Value("${spring.kafka.consumer.max-poll-records}") int maxPollRecords,
+            @Value("${spring.kafka.consumer.properties.max.poll.interval.ms}") long maxPollIntervalMs,
+            @Value("${spring.threads.virtual.enabled}") boolean virtualThreads
     ) {
-        this.restTemplate = new RestTemplate();
-        this.botToken = botToken;
+        checkPollBudget(maxPollRecords, chatPerSecond, Duration.ofMillis(maxPollIntervalMs));
+        this.botClient = botClient;
+        this.rateLimiter = rateLimiter;
+        this.kafkaProducerService = kafkaProducerService;
         this.chatId = chatId;
+        this.deadLetterTopic = deadLetterTopic;
+        // Отправку в каждый чат сдерживает его лимитер, общий поток на чат не нужен
+        this.senderExecutor = TaskExecutors.newExecutor("telegram-sender", senderThreads, virtualThreads);
+        this.deliveredCounter = meterRegistry.counter("notes.telegram.delivered");
+        this.deadLetterCounter = meterRegistry.counter("notes.telegram.dead-lettered");
     }
 
     @KafkaListener(
             topics = "${notes.telegram.topic}",
-            groupId = "telegram-consumer-group" // Явное указание groupId
+            groupId = "telegram-consumer-group", // Явное указание groupId
+            batch = "true",
+            concurrency = "${notes.telegram.concurrency}"
     )
-    public void sendNotification(String message) {
-        String url = String.format(
-                "https://api.telegram.org/bot%s/sendMessage?chat_id=%s&text=%s",
-                botToken, chatId, message
-        );
-        restTemplate.getForObject(url, String.class);
+    public void sendNotifications(List<ConsumerRecord<Long, ReminderEvent>> records) {
+        // Порядок сохраняется внутри чата, разные чаты обслуживаются параллельно
+        Map<String, List<ConsumerRecord<Long, ReminderEvent>>> byChat = new LinkedHashMap<>();
+        for (ConsumerRecord<Long, ReminderEvent> record : records) {
+            if (record.value() == null) {
+                log.warn("Skipping undecodable reminder event at {}-{}@{}",
+                        record.topic(), record.partition(), record.offset());
+                continue;
+            }
+            byChat.computeIfAbsent(resolveChatId(record.value()), id -> new ArrayList<>()).add(record);
+        }
+
+        CompletableFuture<?>[] deliveries = byChat.entrySet().stream()
+                .map(entry -> CompletableFuture.runAsync(
+                        () -> deliver(entry.getKey(), entry.getValue()), senderExecutor))
+                .toArray(CompletableFuture[]::new);
+        // Смещения пакета фиксируются только после доставки или переноса в dead-letter топик
+        CompletableFuture.allOf(deliveries).join();
+    }
+
+    private void deliver(String chatId, List<ConsumerRecord<Long, ReminderEvent>> records) {
+        for (ConsumerRecord<Long, ReminderEvent> record : records) {
+            try {
+                rateLimiter.acquire(chatId);
+                botClient.sendMessage(chatId, formatMessage(record.value()));
+                deliveredCounter.increment();
+            } catch (TelegramDeliveryException e) {
+                log.error("Reminder event for user {} moved to dead-letter topic: {}",
+                        record.value().userId(), e.getMessage());
+                kafkaProducerService.send(deadLetterTopic, record.key(),
+                        serializer.serialize(deadLetterTopic, record.value())).join();
+                deadLetterCounter.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Отправка уведомлений прервана", e);
+            }
+        }
+    }
+
+    /**
+     * В худшем случае весь пакет адресован одному чату и отправляется со скоростью его лимита.
+     * Если это не укладывается в половину max.poll.interval.ms (вторая половина — запас на повторы),
+     * брокер исключит потребителя из группы посреди пакета и пакет будет доставлен повторно.
+     */
+    static void checkPollBudget(int maxPollRecords, double chatPerSecond, Duration maxPollInterval) {
+        Duration batchTime = Duration.ofMillis((long) Math.ceil(maxPollRecords * 1000 / chatPerSecond));
+        if (batchTime.compareTo(maxPollInterval.dividedBy(2)) > 0) {
+            throw new IllegalStateException(String.format(
+                    "Пакет из %d сообщений отправляется в чат за %d с, что превышает половину max.poll.interval.ms; "
+                            + "уменьшите spring.kafka.consumer.max-poll-records",
+                    maxPollRecords, batchTime.toSeconds()));
+        }
+    }
+
+    // Пока все уведомления идут в один настроенный чат
+    private String resolveChatId(ReminderEvent event) {
+        return chatId;
+    }
+
+    // Текст сообщения формируется на стороне потребителя из структурированного события
+    static String formatMessage(ReminderEvent event) {
+        List<ReminderEvent.Item> items = event.items();
+        if (event.type() == ReminderEvent.Type.SCHEDULED) {
+            ReminderEvent.Item item = items.get(0);
+            return String.format("Напоминание: %s в %s", item.title(), item.dueAt().format(DATETIME_FORMATTER));
+        }
+        if (items.size() == 1) {
+            ReminderEvent.Item item = items.get(0);
+            return String.format("Напоминание: %s (срок %s) просрочено!",
+                    item.title(), item.dueAt().format(DATETIME_FORMATTER));
+        }
+
+        StringBuilder text = new StringBuilder("Напоминания (").append(items.size()).append("):");
+        for (int i = 0; i < items.size(); i++) {
+            ReminderEvent.Item item = items.get(i);
+            String line = "\n• " + item.title() + " — " + item.dueAt().format(DATETIME_FORMATTER);
+            if (text.length() + line.length() > MAX_MESSAGE_LENGTH - 32) {
+                text.append("\n… и ещё ").append(items.size() - i);
+                break;
+            }
+            text.append(line);
+        }
+        return text.toString();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senderExecutor.shutdown();
     }
-}
\ No newline at end of file
+}
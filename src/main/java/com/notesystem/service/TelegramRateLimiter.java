@@ -0,0 +1,26 @@
+package com.notesystem.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ограничения Bot API Telegram: общий лимит на бота и отдельный лимит на каждый чат.
+ */
+public class TelegramRateLimiter {
+
+    private final TokenBucket globalBucket;
+    private final Map<String, TokenBucket> chatBuckets = new ConcurrentHashMap<>();
+    private final double chatPermitsPerSecond;
+    private final double chatBurst;
+
+    public TelegramRateLimiter(double globalPermitsPerSecond, double chatPermitsPerSecond, double chatBurst) {
+        this.globalBucket = new TokenBucket(globalPermitsPerSecond, globalPermitsPerSecond);
+        this.chatPermitsPerSecond = chatPermitsPerSecond;
+        this.chatBurst = chatBurst;
+    }
+
+    public void acquire(String chatId) throws InterruptedException {
+        chatBuckets.computeIfAbsent(chatId, id -> new TokenBucket(chatPermitsPerSecond, chatBurst)).acquire();
+        globalBucket.acquire();
+    }
+}
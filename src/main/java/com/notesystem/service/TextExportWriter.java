@@ -0,0 +1,154 @@
+package com.notesystem.service;
+
+import com.notesystem.dto.ExportColumn;
+import com.notesystem.dto.ExportFormat;
+import com.notesystem.dto.NoteExportRow;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Построчная запись заметок в CSV (RFC 4180) или NDJSON.
+ * Строка собирается в переиспользуемых буферах и копируется в поток без промежуточных строк.
+ */
+public class TextExportWriter implements Closeable {
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer writer;
+    private final ExportFormat format;
+    private final ExportColumn[] columns = ExportColumn.values();
+    private final StringBuilder line = new StringBuilder(1024);
+    private final StringBuilder cell = new StringBuilder(256);
+    private char[] chars = new char[1024];
+
+    public TextExportWriter(OutputStream out, ExportFormat format) {
+        if (format != ExportFormat.CSV && format != ExportFormat.NDJSON) {
+            throw new IllegalArgumentException("Текстовая выгрузка не поддерживает формат " + format);
+        }
+        this.writer = new OutputStreamWriter(new BufferedOutputStream(out, OUTPUT_BUFFER_SIZE), StandardCharsets.UTF_8);
+        this.format = format;
+    }
+
+    public void writeHeader() throws IOException {
+        if (format != ExportFormat.CSV) {
+            return;
+        }
+        line.setLength(0);
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendCsv(columns[i].getHeader());
+        }
+        line.append("\r\n");
+        flushLine();
+    }
+
+    /**
+     * Записывает строку; исключение ввода-вывода оборачивается, чтобы метод подходил обработчику курсора.
+     */
+    public void writeRow(NoteExportRow row) {
+        line.setLength(0);
+        if (format == ExportFormat.CSV) {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                cell.setLength(0);
+                columns[i].appendTo(row, cell);
+                appendCsv(cell);
+            }
+            line.append("\r\n");
+        } else {
+            line.append('{');
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append('"').append(columns[i].getField()).append("\":");
+                cell.setLength(0);
+                columns[i].appendTo(row, cell);
+                if (columns[i].numericValue(row).isPresent()) {
+                    line.append(cell);
+                } else {
+                    appendJsonString(cell);
+                }
+            }
+            line.append("}\n");
+        }
+        try {
+            flushLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void appendCsv(CharSequence value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private void appendJsonString(CharSequence value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    private void flushLine() throws IOException {
+        int length = line.length();
+        if (chars.length < length) {
+            chars = Arrays.copyOf(chars, Math.max(length, chars.length * 2));
+        }
+        line.getChars(0, length, chars, 0);
+        writer.write(chars, 0, length);
+    }
+}
@@ -0,0 +1,276 @@
+package com.notesystem.service;
+
+import com.notesystem.dto.PendingThumbnail;
+import com.notesystem.repository.NoteBulkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фоновое построение уменьшенных копий изображений заметок.
+ * Задачи выполняются ограниченным пулом с ограниченной очередью; задачи, не поместившиеся в очередь
+ * или потерянные при перезапуске, подбирает периодический проход по заметкам без копий.
+ * Отсутствующий или повреждённый файл отмечается как недоступный; после временного сбоя хранилища
+ * заметка откладывается на retry-delay-ms, чтобы проход не упирался в одни и те же строки.
+ */
+@Service
+public class ThumbnailService {
+
+    public static final int SMALL_SIZE = 128;
+    public static final int LARGE_SIZE = 512;
+    public static final List<Integer> SIZES = List.of(SMALL_SIZE, LARGE_SIZE);
+    // Отметка о том, что копии построить нельзя: повторные попытки не нужны
+    private static final String UNAVAILABLE = "";
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailService.class);
+
+    private final NoteBulkRepository noteBulkRepository;
+    private final NoteCacheEvictor noteCacheEvictor;
+    private final FileStorageService fileStorageService;
+    private final long maxPixels;
+    private final int sweepBatchSize;
+    private final long retryDelayMillis;
+    private final ThreadPoolExecutor executor;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final Counter generated;
+    private final Counter failed;
+
+    public ThumbnailService(NoteBulkRepository noteBulkRepository,
+                            NoteCacheEvictor noteCacheEvictor,
+                            FileStorageService fileStorageService,
+                            @Value("${notes.thumbnails.threads}") int threads,
+                            @Value("${notes.thumbnails.queue-capacity}") int queueCapacity,
+                            @Value("${notes.thumbnails.max-pixels}") long maxPixels,
+                            @Value("${notes.thumbnails.sweep-batch-size}") int sweepBatchSize,
+                            @Value("${notes.thumbnails.retry-delay-ms}") long retryDelayMillis,
+                            MeterRegistry meterRegistry) {
+        this.noteBulkRepository = noteBulkRepository;
+        this.noteCacheEvictor = noteCacheEvictor;
+        this.fileStorageService = fileStorageService;
+        this.maxPixels = maxPixels;
+        this.sweepBatchSize = sweepBatchSize;
+        this.retryDelayMillis = retryDelayMillis;
+        // Масштабирование загружает процессор, поэтому пул остаётся платформенным и в режиме виртуальных потоков
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity));
+        this.generated = Counter.builder("notes.thumbnails.generated").register(meterRegistry);
+        this.failed = Counter.builder("notes.thumbnails.failed").register(meterRegistry);
+        Gauge.builder("notes.thumbnails.queue", executor, pool -> pool.getQueue().size())
+                .description("Изображения в очереди на построение копий")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ставит изображение в очередь. При переполненной очереди задача отбрасывается
+     * и будет подобрана периодическим проходом.
+     */
+    public void submit(Long noteId, String imagePath) {
+        if (!inFlight.add(noteId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(noteId, imagePath);
+                } finally {
+                    inFlight.remove(noteId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(noteId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notes.thumbnails.sweep-ms}")
+    public void sweep() {
+        int free = executor.getQueue().remainingCapacity();
+        if (free == 0) {
+            return;
+        }
+        try {
+            for (PendingThumbnail pending : noteBulkRepository.findPendingThumbnails(Math.min(free, sweepBatchSize))) {
+                submit(pending.noteId(), pending.imagePath());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Thumbnail sweep failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Имя файла копии заданного размера; используется и сборщиком неиспользуемых файлов.
+     */
+    public String variantName(String imagePath, int size) {
+        return fileStorageService.variantName(imagePath, String.valueOf(size), "jpg");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void generate(Long noteId, String imagePath) {
+        String small = variantName(imagePath, SMALL_SIZE);
+        String large = variantName(imagePath, LARGE_SIZE);
+        try {
+            // Файлы хранятся по хешу содержимого, поэтому копии могли остаться от другой заметки
+            if (!fileStorageService.imageExists(small) || !fileStorageService.imageExists(large)) {
+                BufferedImage source = decode(imagePath);
+                if (source != null) {
+                    write(large, scale(source, LARGE_SIZE));
+                    write(small, scale(source, SMALL_SIZE));
+                    generated.increment();
+                } else {
+                    // Файла нет, формат не распознан или изображение больше допустимого: повтор ничего не изменит
+                    small = UNAVAILABLE;
+                    large = UNAVAILABLE;
+                    failed.increment();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Сбой чтения или записи хранилища может быть временным: копии остаются NULL до срока повтора
+            log.warn("Failed to build thumbnails for note {}, will retry: {}", noteId, e.getMessage());
+            failed.increment();
+            try {
+                noteBulkRepository.deferThumbnails(noteId, imagePath, retryDelayMillis);
+            } catch (RuntimeException deferFailure) {
+                log.warn("Failed to defer thumbnails for note {}: {}", noteId, deferFailure.getMessage());
+            }
+            return;
+        }
+        try {
+            // Запрос через JPQL сбросил бы из кеша все заметки, поэтому сбрасывается только эта
+            if (noteBulkRepository.updateThumbnails(noteId, imagePath, small, large) > 0) {
+                noteCacheEvictor.evict(noteId);
+            }
+        } catch (RuntimeException e) {
+            // Заметка останется без копий и будет обработана следующим проходом
+            log.warn("Failed to record thumbnails for note {}: {}", noteId, e.getMessage());
+        }
+    }
+
+    /**
+     * Декодирует изображение с проверкой размера по заголовку и прореживанием больших изображений
+     * при чтении, чтобы не разворачивать в память полноразмерный растр.
+     * Возвращает null, если копии построить нельзя; исключение означает временный сбой чтения.
+     */
+    private BufferedImage decode(String imagePath) throws IOException {
+        InputStream in;
+        try {
+            in = fileStorageService.openImage(imagePath);
+        } catch (NoSuchFileException e) {
+            log.warn("Image {} is missing, thumbnails are unavailable", imagePath);
+            return null;
+        }
+        try (in; ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    log.warn("Image {} is too large for thumbnails: {}x{}", imagePath, width, height);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (LARGE_SIZE * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } catch (IOException | RuntimeException e) {
+                if (isStreamFailure(e)) {
+                    throw e;
+                }
+                log.warn("Image {} cannot be decoded: {}", imagePath, e.getMessage());
+                return null;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Декодер оборачивает и сбои потока; обрыв файла и ошибки формата означают повреждённый файл
+    private static boolean isStreamFailure(Exception e) {
+        Throwable failure = e instanceof IIOException || e instanceof RuntimeException ? e.getCause() : e;
+        return failure instanceof IOException
+                && !(failure instanceof IIOException)
+                && !(failure instanceof EOFException);
+    }
+
+    // Вписывает изображение в квадрат, уменьшая вдвое за шаг для качественного сглаживания
+    private static BufferedImage scale(BufferedImage source, int box) {
+        double ratio = Math.min(1.0, (double) box / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                // JPEG не поддерживает прозрачность, поэтому фон заливается белым
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, width, height);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private void write(String name, BufferedImage image) throws IOException {
+        fileStorageService.writeImage(name, out -> {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                writer.setOutput(stream);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+        });
+    }
+}
@@ -0,0 +1,99 @@
+package com.notesystem.service;
+
+import com.notesystem.dto.TokenRevocation;
+import com.notesystem.repository.TokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Список отозванных access-токенов в памяти экземпляра.
+ * Снимок целиком перечитывается из журнала отзыва по расписанию, поэтому отзыв на другом узле
+ * вступает в силу не позже чем через период обновления. Проверка токена не обращается к базе.
+ */
+@Component
+public class TokenDenylist {
+
+    // Сколько держать собственные отзывы поверх снимка, если он был прочитан до их фиксации
+    private static final long LOCAL_OVERLAP_SECONDS = 60;
+    private static final Logger log = LoggerFactory.getLogger(TokenDenylist.class);
+
+    private final TokenRepository tokenRepository;
+    private final Map<TokenRevocation, Instant> local = new ConcurrentHashMap<>();
+    // Читатели обращаются к снимку без блокировки, запись снимка сериализуется
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of());
+
+    public TokenDenylist(TokenRepository tokenRepository) {
+        this.tokenRepository = tokenRepository;
+    }
+
+    /**
+     * Токен отозван, если отозван его jti или все токены пользователя, выданные не позже момента отзыва.
+     * iat хранится с точностью до секунды, поэтому токен, выданный в ту же секунду, тоже считается отозванным.
+     */
+    public boolean isRevoked(String jti, Long userId, Instant issuedAt) {
+        Snapshot current = snapshot;
+        if (current.jtis.containsKey(jti)) {
+            return true;
+        }
+        Instant revokedAt = current.users.get(userId);
+        return revokedAt != null && !issuedAt.isAfter(revokedAt.truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * Применяет отзыв на этом экземпляре сразу, не дожидаясь обновления снимка.
+     */
+    public void add(TokenRevocation revocation) {
+        local.put(revocation, Instant.now());
+        lock.lock();
+        try {
+            snapshot = snapshot.with(List.of(revocation));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notes.security.tokens.denylist-refresh-ms}")
+    public void refresh() {
+        try {
+            Instant now = Instant.now();
+            List<TokenRevocation> revocations = tokenRepository.findActiveRevocations(now);
+            local.values().removeIf(addedAt -> addedAt.isBefore(now.minusSeconds(LOCAL_OVERLAP_SECONDS)));
+            lock.lock();
+            try {
+                snapshot = new Snapshot(Map.of(), Map.of()).with(revocations).with(local.keySet());
+            } finally {
+                lock.unlock();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Token denylist refresh failed, keeping previous snapshot: {}", e.getMessage());
+        }
+    }
+
+    private record Snapshot(Map<String, Instant> jtis, Map<Long, Instant> users) {
+
+        Snapshot with(Iterable<TokenRevocation> revocations) {
+            Map<String, Instant> jtis = new HashMap<>(this.jtis);
+            Map<Long, Instant> users = new HashMap<>(this.users);
+            for (TokenRevocation revocation : revocations) {
+                if (revocation.jti() != null) {
+                    jtis.put(revocation.jti(), revocation.expiresAt());
+                }
+                if (revocation.userId() != null) {
+                    users.merge(revocation.userId(), revocation.revokedAt(),
+                            (left, right) -> left.isAfter(right) ? left : right);
+                }
+            }
+            return new Snapshot(jtis, users);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.notesystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notesystem.dto.AuthPrincipal;
+import com.notesystem.dto.TokenPair;
+import com.notesystem.dto.TokenRevocation;
+import com.notesystem.model.User;
+import com.notesystem.repository.TokenRepository;
+import com.notesystem.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Выдача и проверка токенов API.
+ * Access-токен — короткоживущий JWT с подписью HMAC-SHA256, который проверяется без обращения к базе;
+ * refresh-токен — случайная строка, в базе хранится только её хеш. Refresh-токен одноразовый:
+ * повторное предъявление уже обменянного токена считается утечкой и отзывает все токены пользователя.
+ * Токен, отозванный выходом или администратором, просто отклоняется.
+ */
+@Service
+public class TokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final int REFRESH_TOKEN_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String HEADER = ENCODER.encodeToString(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.US_ASCII));
+    private static final TypeReference<Map<String, Object>> CLAIMS_TYPE = new TypeReference<>() {
+    };
+
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+
+    private final TokenRepository tokenRepository;
+    private final UserRepository userRepository;
+    private final TokenDenylist denylist;
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec key;
+    private final String issuer;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
+    private final SecureRandom random = new SecureRandom();
+
+    public TokenService(TokenRepository tokenRepository,
+                        UserRepository userRepository,
+                        TokenDenylist denylist,
+                        ObjectMapper objectMapper,
+                        @Value("${notes.security.tokens.secret}") String secret,
+                        @Value("${notes.security.tokens.issuer}") String issuer,
+                        @Value("${notes.security.tokens.access-ttl}") Duration accessTtl,
+                        @Value("${notes.security.tokens.refresh-ttl}") Duration refreshTtl) {
+        this.tokenRepository = tokenRepository;
+        this.userRepository = userRepository;
+        this.denylist = denylist;
+        this.objectMapper = objectMapper;
+        this.key = new SecretKeySpec(secretBytes(secret), ALGORITHM);
+        this.issuer = issuer;
+        this.accessTtl = accessTtl;
+        this.refreshTtl = refreshTtl;
+    }
+
+    /**
+     * Проверенный access-токен.
+     */
+    public record AccessToken(AuthPrincipal principal, String jti, Instant issuedAt, Instant expiresAt) {
+    }
+
+    @Transactional
+    public TokenPair issue(User user) {
+        if (!user.isActive()) {
+            throw new DisabledException("Пользователь деактивирован");
+        }
+        Instant now = Instant.now();
+        String refreshToken = newRefreshToken();
+        tokenRepository.createRefreshToken(user.getId(), hash(refreshToken), now.plus(refreshTtl));
+        return TokenPair.bearer(accessToken(user, now), refreshToken, accessTtl.toSeconds());
+    }
+
+    /**
+     * Проверяет подпись, издателя, срок и отзыв access-токена.
+     */
+    public AccessToken verify(String token) {
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot < 0 || firstDot == lastDot || !HEADER.equals(token.substring(0, firstDot))) {
+            throw new BadCredentialsException("Некорректный токен");
+        }
+        byte[] expected = sign(token.substring(0, lastDot));
+        byte[] actual;
+        Map<String, Object> claims;
+        try {
+            actual = DECODER.decode(token.substring(lastDot + 1));
+            if (!MessageDigest.isEqual(expected, actual)) {
+                throw new BadCredentialsException("Некорректная подпись токена");
+            }
+            claims = objectMapper.readValue(DECODER.decode(token.substring(firstDot + 1, lastDot)), CLAIMS_TYPE);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new BadCredentialsException("Некорректный токен", e);
+        }
+
+        try {
+            if (!issuer.equals(claims.get("iss"))) {
+                throw new BadCredentialsException("Токен выдан другим издателем");
+            }
+            Instant issuedAt = Instant.ofEpochSecond(((Number) claims.get("iat")).longValue());
+            Instant expiresAt = Instant.ofEpochSecond(((Number) claims.get("exp")).longValue());
+            if (!Instant.now().isBefore(expiresAt)) {
+                throw new CredentialsExpiredException("Срок действия токена истёк");
+            }
+            AuthPrincipal principal = new AuthPrincipal(
+                    Long.valueOf((String) claims.get("sub")),
+                    (String) claims.get("name"),
+                    User.Role.valueOf((String) claims.get("role")),
+                    true);
+            String jti = (String) claims.get("jti");
+            if (jti == null || denylist.isRevoked(jti, principal.id(), issuedAt)) {
+                throw new BadCredentialsException("Токен отозван");
+            }
+            return new AccessToken(principal, jti, issuedAt, expiresAt);
+        } catch (ClassCastException | NullPointerException | IllegalArgumentException e) {
+            throw new BadCredentialsException("Некорректные данные токена", e);
+        }
+    }
+
+    /**
+     * Обменивает refresh-токен на новую пару токенов.
+     */
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public TokenPair refresh(String refreshToken) {
+        TokenRepository.RefreshTokenRow row = tokenRepository.lockRefreshToken(hash(refreshToken))
+                .orElseThrow(() -> new BadCredentialsException("Неизвестный refresh-токен"));
+        if (row.replaced()) {
+            // Обменянный токен предъявлен повторно: кто-то из двух владельцев им завладел незаконно
+            log.warn("Refresh token reuse detected for user {}, revoking all tokens", row.userId());
+            revokeUser(row.userId());
+            throw new BadCredentialsException("Refresh-токен уже использован");
+        }
+        if (row.revoked()) {
+            throw new BadCredentialsException("Refresh-токен отозван");
+        }
+        if (!Instant.now().isBefore(row.expiresAt())) {
+            throw new CredentialsExpiredException("Срок действия refresh-токена истёк");
+        }
+        tokenRepository.replaceRefreshToken(row.id());
+        User user = userRepository.findById(row.userId())
+                .orElseThrow(() -> new BadCredentialsException("Пользователь не найден"));
+        return issue(user);
+    }
+
+    /**
+     * Отзывает текущий access-токен и, если передан, refresh-токен того же пользователя.
+     */
+    @Transactional
+    public void logout(AccessToken accessToken, String refreshToken) {
+        if (refreshToken != null) {
+            tokenRepository.revokeRefreshToken(accessToken.principal().id(), hash(refreshToken));
+        }
+        tokenRepository.revokeAccessToken(accessToken.jti(), accessToken.expiresAt());
+        TokenRevocation revocation = new TokenRevocation(accessToken.jti(), null, Instant.now(),
+                accessToken.expiresAt());
+        afterCommit(() -> denylist.add(revocation));
+    }
+
+    /**
+     * Отзывает все токены пользователя, например после деактивации или смены роли.
+     */
+    @Transactional
+    public void revokeUser(Long userId) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(accessTtl);
+        tokenRepository.revokeRefreshTokensOfUser(userId);
+        tokenRepository.revokeAccessTokensOfUser(userId, now, expiresAt);
+        TokenRevocation revocation = new TokenRevocation(null, userId, now, expiresAt);
+        afterCommit(() -> denylist.add(revocation));
+    }
+
+    @Scheduled(fixedDelayString = "${notes.security.tokens.cleanup-ms}")
+    public void cleanup() {
+        try {
+            int removed = tokenRepository.deleteExpired(Instant.now());
+            if (removed > 0) {
+                log.info("Removed {} expired tokens and revocations", removed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Token cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private String accessToken(User user, Instant now) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", issuer);
+        claims.put("sub", String.valueOf(user.getId()));
+        claims.put("name", user.getUsername());
+        claims.put("role", user.getRole().name());
+        claims.put("jti", UUID.randomUUID().toString());
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", now.plus(accessTtl).getEpochSecond());
+        try {
+            String signingInput = HEADER + "." + ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            return signingInput + "." + ENCODER.encodeToString(sign(signingInput));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сформировать токен", e);
+        }
+    }
+
+    private byte[] sign(String signingInput) {
+        try {
+            // Mac не потокобезопасен, поэтому создаётся на каждую подпись
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 недоступен", e);
+        }
+    }
+
+    private String newRefreshToken() {
+        byte[] bytes = new byte[REFRESH_TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return ENCODER.encodeToString(bytes);
+    }
+
+    private static String hash(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    // Без общего секрета токены одного узла не принимаются другими, поэтому это допустимо только при одном экземпляре
+    private static byte[] secretBytes(String secret) {
+        if (secret == null || secret.isBlank()) {
+            log.warn("notes.security.tokens.secret is not set, using a random key: tokens will not survive a restart");
+            byte[] generated = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(generated);
+            return generated;
+        }
+        byte[] bytes = Base64.getDecoder().decode(secret.trim());
+        if (bytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("Секрет токенов должен содержать не менее " + MIN_SECRET_BYTES + " байт");
+        }
+        return bytes;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -7,6 +7,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.util.Optional;
 
 /**
@@ -18,13 +20,15 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CustomUserDetailsService userDetailsService;
+    private final TokenService tokenService;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       CustomUserDetailsService userDetailsService, TokenService tokenService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-
-        // Для отладки: выводим хеш пароля "admin"
-        System.out.println("DEBUG: Hash for 'admin': " + passwordEncoder.encode("admin"));
+        this.userDetailsService = userDetailsService;
+        this.tokenService = tokenService;
     }
 
     @Transactional
@@ -35,7 +39,6 @@ public class UserService {
 
         // Убедимся, что пароль хешируется
         String encodedPassword = passwordEncoder.encode(password);
-        System.out.println("DEBUG: Registering user: " + username + " with password hash: " + encodedPassword);
 
         User user = new User(username, encodedPassword);
         return userRepository.save(user);
@@ -47,6 +50,9 @@ public class UserService {
                 .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
         user.setActive(!user.isActive());
         userRepository.save(user);
+        // Выданные токены API несут прежнюю роль и статус, поэтому отзываются
+        tokenService.revokeUser(userId);
+        evictAfterCommit(user.getUsername());
     }
 
     @Transactional
@@ -55,6 +61,9 @@ public class UserService {
                 .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
         user.setRole(role);
         userRepository.save(user);
+        // Выданные токены API несут прежнюю роль и статус, поэтому отзываются
+        tokenService.revokeUser(userId);
+        evictAfterCommit(user.getUsername());
     }
 
     @Transactional(readOnly = true)
@@ -69,4 +78,14 @@ public class UserService {
     public Optional<User> findByUsername(String username) {
         return userRepository.findByUsername(username);
     }
+
+    // Сброс до фиксации позволил бы параллельному входу снова закешировать старое состояние
+    private void evictAfterCommit(String username) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userDetailsService.evict(username);
+            }
+        });
+    }
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+-- Уменьшенные копии изображений; пустая строка означает, что копию построить не удалось
+ALTER TABLE notes ADD COLUMN image_thumb_small VARCHAR(255);
+ALTER TABLE notes ADD COLUMN image_thumb_large VARCHAR(255);
+-- Время следующей попытки после временного сбоя, чтобы такие заметки не занимали начало очереди прохода
+ALTER TABLE notes ADD COLUMN image_thumb_retry_at TIMESTAMP;
+
+-- Заметки, для изображений которых копии ещё не построены
+CREATE INDEX idx_notes_thumbnail_pending ON notes(id)
+    WHERE image_path IS NOT NULL AND image_thumb_small IS NULL;
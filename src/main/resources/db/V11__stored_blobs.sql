@@ -0,0 +1,15 @@
+-- Счётчики ссылок на изображения, хранящиеся по хешу содержимого.
+-- Запись с нулевым счётчиком удаляется сборщиком вместе с файлом по истечении отсрочки от released_at.
+CREATE TABLE stored_blobs (
+    path VARCHAR(255) PRIMARY KEY,
+    size BIGINT,
+    ref_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    released_at TIMESTAMP
+);
+
+CREATE INDEX idx_stored_blobs_unreferenced ON stored_blobs(released_at) WHERE ref_count = 0;
+
+-- Ранее загруженные файлы учитываются по тем же правилам, что и новые
+INSERT INTO stored_blobs (path, ref_count)
+SELECT image_path, count(*) FROM notes WHERE image_path IS NOT NULL GROUP BY image_path;
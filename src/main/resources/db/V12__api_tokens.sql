@@ -0,0 +1,28 @@
+-- Refresh-токены API; хранится только SHA-256 токена.
+-- replaced_at ставится только при обмене на новую пару: повторное предъявление такого токена означает утечку,
+-- а токены, отозванные выходом или администратором, просто перестают приниматься
+CREATE TABLE refresh_tokens (
+    id BIGSERIAL PRIMARY KEY,
+    user_id INTEGER NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    token_hash VARCHAR(64) NOT NULL UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP,
+    replaced_at TIMESTAMP
+);
+
+CREATE INDEX idx_refresh_tokens_user ON refresh_tokens(user_id) WHERE revoked_at IS NULL;
+CREATE INDEX idx_refresh_tokens_expires ON refresh_tokens(expires_at);
+
+-- Отзывы access-токенов до истечения срока: отдельного токена (jti) или всех токенов пользователя,
+-- выданных раньше revoked_at. Строки нужны только до expires_at, пока отозванные токены ещё действительны.
+CREATE TABLE token_revocations (
+    id BIGSERIAL PRIMARY KEY,
+    jti VARCHAR(36),
+    user_id INTEGER,
+    revoked_at TIMESTAMP NOT NULL DEFAULT now(),
+    expires_at TIMESTAMP NOT NULL,
+    CHECK (jti IS NOT NULL OR user_id IS NOT NULL)
+);
+
+CREATE INDEX idx_token_revocations_expires ON token_revocations(expires_at);
@@ -0,0 +1,5 @@
+-- Версия заметки для оптимистической блокировки и ETag в API; увеличивается при каждом изменении представления
+ALTER TABLE notes ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- Постраничное чтение заметок пользователя в порядке id для синхронизации клиентов
+CREATE INDEX idx_notes_user_id_id ON notes(user_id, id);
@@ -0,0 +1,58 @@
+-- Счётчик изменений заметок пользователя для условных запросов к страницам.
+-- Увеличивается триггерами на каждый оператор, изменивший заметки пользователя, поэтому его
+-- учитывают и запись через Hibernate, и массовые JDBC-запросы, и импорт.
+-- Счётчик хранится отдельно от users: иначе триггер блокировал бы строку пользователя
+-- до конца каждой транзакции с заметками. Строка появляется при первом изменении заметок.
+CREATE TABLE user_notes_version (
+    user_id INTEGER PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    version BIGINT NOT NULL
+);
+
+-- Строки счётчиков блокируются по возрастанию user_id, поэтому параллельные операторы
+-- над заметками нескольких пользователей ждут друг друга, но не взаимоблокируются.
+-- Соединение с users пропускает пользователя, чьи заметки удаляются каскадом вместе с ним.
+CREATE FUNCTION bump_user_notes_versions(user_ids INTEGER[]) RETURNS void AS $$
+    INSERT INTO user_notes_version (user_id, version)
+    SELECT DISTINCT u.id, 1
+    FROM unnest(user_ids) AS changed(user_id)
+    JOIN users u ON u.id = changed.user_id
+    ORDER BY u.id
+    ON CONFLICT (user_id) DO UPDATE SET version = user_notes_version.version + 1;
+$$ LANGUAGE sql;
+
+-- Триггеры уровня оператора с таблицами переходов: одно обновление счётчиков на оператор, а не на строку.
+-- Изменение только аренды напоминания не меняет отображаемых данных и счётчик не увеличивает.
+CREATE FUNCTION bump_notes_version() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM bump_user_notes_versions(ARRAY(SELECT user_id FROM new_notes));
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM bump_user_notes_versions(ARRAY(SELECT user_id FROM old_notes));
+    ELSE
+        PERFORM bump_user_notes_versions(ARRAY(
+            SELECT n.user_id FROM new_notes n JOIN old_notes o ON o.id = n.id
+            WHERE (n.user_id, n.title, n.content, n.created_date, n.completed, n.reminder,
+                   n.image_path, n.image_thumb_small, n.image_thumb_large)
+                  IS DISTINCT FROM
+                  (o.user_id, o.title, o.content, o.created_date, o.completed, o.reminder,
+                   o.image_path, o.image_thumb_small, o.image_thumb_large)
+            UNION
+            SELECT o.user_id FROM new_notes n JOIN old_notes o ON o.id = n.id
+            WHERE n.user_id <> o.user_id));
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Таблицы переходов нельзя объявить у триггера на несколько событий, поэтому триггеров три
+CREATE TRIGGER notes_version_insert AFTER INSERT ON notes
+    REFERENCING NEW TABLE AS new_notes
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_notes_version();
+
+CREATE TRIGGER notes_version_update AFTER UPDATE ON notes
+    REFERENCING OLD TABLE AS old_notes NEW TABLE AS new_notes
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_notes_version();
+
+CREATE TRIGGER notes_version_delete AFTER DELETE ON notes
+    REFERENCING OLD TABLE AS old_notes
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_notes_version();
@@ -0,0 +1,3 @@
+-- Частичный индекс для выборки напоминаний в окне горизонта
+CREATE INDEX idx_notes_reminder_pending ON notes(reminder, id)
+    WHERE reminder IS NOT NULL AND NOT completed;
@@ -0,0 +1,3 @@
+-- Аренда напоминаний для согласованной отправки с нескольких реплик
+ALTER TABLE notes ADD COLUMN reminder_lease_owner VARCHAR(64);
+ALTER TABLE notes ADD COLUMN reminder_lease_until TIMESTAMP;
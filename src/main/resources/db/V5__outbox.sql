@@ -0,0 +1,8 @@
+-- Транзакционный outbox: события пишутся в одной транзакции с заметкой
+CREATE TABLE public.outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    topic VARCHAR(255) NOT NULL,
+    message_key BIGINT,
+    payload BYTEA NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
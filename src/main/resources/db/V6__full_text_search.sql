@@ -0,0 +1,15 @@
+-- Полнотекстовый поиск по заметкам: русская морфология плюс простая конфигурация
+-- для слов, которых нет в словаре, и триграммы для поиска по подстроке
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+ALTER TABLE notes ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('russian', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('russian', coalesce(content, '')), 'B') ||
+    setweight(to_tsvector('simple', coalesce(content, '')), 'B')
+) STORED;
+
+CREATE INDEX idx_notes_user_search_vector ON notes USING GIN (user_id, search_vector);
+CREATE INDEX idx_notes_user_title_trgm ON notes USING GIN (user_id, title gin_trgm_ops);
+CREATE INDEX idx_notes_user_content_trgm ON notes USING GIN (user_id, content gin_trgm_ops);
@@ -0,0 +1,9 @@
+-- Составные индексы для keyset-пагинации списка заметок по каждому допустимому ключу сортировки.
+-- Все столбцы ключа идут в одном направлении: сравнение кортежей (a, id) < (?, ?) использует индекс
+-- при прямом и обратном сканировании.
+CREATE INDEX idx_notes_user_created ON notes(user_id, created_date, id);
+CREATE INDEX idx_notes_user_title ON notes(user_id, title, id);
+CREATE INDEX idx_notes_user_status ON notes(user_id, completed, created_date, id);
+
+-- Покрывается префиксом новых индексов
+DROP INDEX IF EXISTS idx_notes_user_id;
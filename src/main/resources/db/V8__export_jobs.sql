@@ -0,0 +1,22 @@
+-- Фоновые задания выгрузки заметок
+CREATE TABLE export_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    user_id INTEGER NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    format VARCHAR(16) NOT NULL,
+    status VARCHAR(16) NOT NULL DEFAULT 'QUEUED',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    owner VARCHAR(64),
+    rows_written BIGINT NOT NULL DEFAULT 0,
+    total_rows BIGINT,
+    file_path VARCHAR(255),
+    file_size BIGINT,
+    error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    started_at TIMESTAMP,
+    heartbeat_at TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+CREATE INDEX idx_export_jobs_user ON export_jobs(user_id, id);
+-- Очередь и выполняющиеся задания: небольшая часть таблицы
+CREATE INDEX idx_export_jobs_active ON export_jobs(status, id) WHERE status IN ('QUEUED', 'RUNNING');
@@ -0,0 +1,8 @@
+-- Идентификаторы заметок выдаются блоками по 50 (pooled-оптимизатор Hibernate и пакетный импорт),
+-- что позволяет вставлять заметки пакетами JDBC
+ALTER TABLE notes ALTER COLUMN id TYPE BIGINT;
+ALTER SEQUENCE notes_id_seq AS BIGINT INCREMENT BY 50;
+SELECT setval('notes_id_seq', (SELECT COALESCE(max(id), 0) FROM notes) + 50);
+
+-- Значение по умолчанию пересекалось бы с выданными блоками
+ALTER TABLE notes ALTER COLUMN id DROP DEFAULT;
@@ -45,7 +45,9 @@
                 <label for="image">Изображение</label>
                 <#if note.imagePath??>
                     <div class="image-preview">
-                        <img src="/images/${note.imagePath}" alt="Текущее изображение" width="200">
+                        <#if note.imageThumbSmall?has_content>
+                            <img src="/images/${note.imageThumbSmall}" alt="Текущее изображение">
+                        </#if>
                         <a href="/images/${note.imagePath}" target="_blank">Просмотреть</a>
                     </div>
                 </#if>
@@ -55,7 +57,7 @@
             <div class="form-group">
                 <label for="reminder">Напоминание</label>
                 <input type="datetime-local" id="reminder" name="reminder"
-                       value="${(note.reminder??)?then(note.reminder?string('yyyy-MM-ddTHH:mm'),'')}">
+                       value="${(note.reminder??)?then(note.reminder?string("yyyy-MM-dd'T'HH:mm"),'')}">
             </div>
 
             <button type="submit" class="btn">Обновить заметку</button>
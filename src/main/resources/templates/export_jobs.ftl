@@ -0,0 +1,74 @@
+<!DOCTYPE html>
+<html>
+<head>
+    <title>Выгрузки</title>
+    <link rel="stylesheet" href="/css/style.css">
+    <#if hasActive>
+        <meta http-equiv="refresh" content="3">
+    </#if>
+</head>
+<body>
+    <div class="container">
+        <div class="header">
+            <a href="/notes" class="btn">Назад к списку</a>
+            <a href="/logout" class="logout-btn">Выйти</a>
+        </div>
+
+        <h1>Выгрузки</h1>
+
+        <#if error??>
+            <div class="alert error">${error?html}</div>
+        </#if>
+
+        <div class="actions">
+            <#list ["xlsx", "csv", "ndjson"] as format>
+                <form action="/export/jobs" method="post" class="inline-form">
+                    <input type="hidden" name="format" value="${format}">
+                    <button type="submit" class="btn export-btn">Новая выгрузка ${format?upper_case}</button>
+                </form>
+            </#list>
+        </div>
+
+        <table>
+            <thead>
+                <tr>
+                    <th>Создана</th>
+                    <th>Формат</th>
+                    <th>Статус</th>
+                    <th>Строк</th>
+                    <th>Файл</th>
+                </tr>
+            </thead>
+            <tbody>
+                <#list jobs as job>
+                <tr>
+                    <td>${job.createdAt?string('dd.MM.yyyy HH:mm')}</td>
+                    <td>${job.format.extension?upper_case}</td>
+                    <td>
+                        <#switch job.status>
+                            <#case "QUEUED">В очереди<#break>
+                            <#case "RUNNING">Выполняется: ${job.progressPercent}%<#break>
+                            <#case "DONE">Готово<#break>
+                            <#default>Ошибка<#if job.error??>: ${job.error?html}</#if>
+                        </#switch>
+                    </td>
+                    <td>${job.rowsWritten}</td>
+                    <td>
+                        <#if job.status == "DONE">
+                            <a href="/export/jobs/${job.id}/download" class="action-btn view">Скачать</a>
+                            (${(job.fileSize / 1024)?round} КБ)
+                        <#else>
+                            -
+                        </#if>
+                    </td>
+                </tr>
+                <#else>
+                <tr>
+                    <td colspan="5" class="no-notes">Выгрузок пока нет</td>
+                </tr>
+                </#list>
+            </tbody>
+        </table>
+    </div>
+</body>
+</html>
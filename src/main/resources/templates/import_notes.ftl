@@ -0,0 +1,59 @@
+<!DOCTYPE html>
+<html>
+<head>
+    <title>Импорт заметок</title>
+    <link rel="stylesheet" href="/css/style.css">
+</head>
+<body>
+    <div class="container">
+        <div class="header">
+            <a href="/notes" class="btn">Назад к списку</a>
+            <a href="/logout" class="logout-btn">Выйти</a>
+        </div>
+
+        <h1>Импорт заметок</h1>
+
+        <p>
+            Поддерживаются файлы CSV и XLSX. Первая строка — заголовки столбцов:
+            title (или «Заголовок»), content, createdDate, status, reminder.
+            Файл, полученный выгрузкой, можно загрузить без изменений.
+        </p>
+
+        <form action="/notes/import" method="post" enctype="multipart/form-data">
+            <div class="form-group">
+                <input type="file" name="file" accept=".csv,.xlsx" required class="form-input">
+            </div>
+            <button type="submit" class="btn">Импортировать</button>
+        </form>
+
+        <#if error??>
+            <div class="alert error">${error?html}</div>
+        </#if>
+
+        <#if result??>
+            <h2>Импортировано: ${result.imported}, отклонено: ${result.failed}</h2>
+            <#if result.errors?has_content>
+                <table>
+                    <thead>
+                        <tr>
+                            <th>Строка</th>
+                            <th>Ошибка</th>
+                        </tr>
+                    </thead>
+                    <tbody>
+                        <#list result.errors as rowError>
+                        <tr>
+                            <td>${rowError.row?c}</td>
+                            <td>${rowError.message?html}</td>
+                        </tr>
+                        </#list>
+                    </tbody>
+                </table>
+                <#if result.failed gt result.errors?size>
+                    <p>Показаны первые ${result.errors?size} ошибок.</p>
+                </#if>
+            </#if>
+        </#if>
+    </div>
+</body>
+</html>
@@ -29,7 +29,13 @@
 
         <#if note.imagePath??>
             <div class="note-image">
-                <img src="/images/${note.imagePath}" alt="Изображение заметки" class="img-responsive">
+                <#if note.imageThumbLarge?has_content>
+                    <a href="/images/${note.imagePath}" target="_blank">
+                        <img src="/images/${note.imageThumbLarge}" alt="Изображение заметки" class="img-responsive">
+                    </a>
+                <#else>
+                    <a href="/images/${note.imagePath}" target="_blank" class="image-link">Открыть изображение</a>
+                </#if>
             </div>
         </#if>
 
@@ -1,3 +1,12 @@
+<#macro sortLink key label>
+    <#if sort?? && sort == key>
+        <a href="/notes?sort=${key}&direction=${(direction == 'asc')?then('desc', 'asc')}" class="sort-link active">
+            ${label} ${(direction == 'asc')?then('↑', '↓')}
+        </a>
+    <#else>
+        <a href="/notes?sort=${key}&direction=desc" class="sort-link">${label}</a>
+    </#if>
+</#macro>
 <!DOCTYPE html>
 <html>
 <head>
@@ -17,20 +26,41 @@
 
         <div class="actions">
             <a href="/notes/add" class="btn">Добавить заметку</a>
-            <a href="/export/excel" class="btn export-btn">Экспорт в Excel</a>
+            <form action="/export/jobs" method="post" class="inline-form">
+                <input type="hidden" name="format" value="xlsx">
+                <button type="submit" class="btn export-btn">Экспорт в Excel</button>
+            </form>
+            <a href="/export/jobs" class="btn export-btn">Мои выгрузки</a>
+            <a href="/notes/import" class="btn">Импорт</a>
         </div>
 
         <form action="/notes" method="get" class="search-form">
-            <input type="text" name="query" placeholder="Поиск заметок..." value="${query!''}">
+            <input type="text" name="query" id="search-input" placeholder="Поиск заметок..."
+                   value="${query!''}" autocomplete="off">
             <button type="submit">Поиск</button>
+            <ul id="suggestions" class="suggestions" hidden></ul>
+        </form>
+
+        <#-- Флажки строк привязаны к форме через атрибут form: формы в ячейках нельзя вкладывать в неё -->
+        <form id="bulk-form" action="/notes/bulk" method="post" class="bulk-actions">
+            <#if _csrf??>
+                <input type="hidden" name="${_csrf.parameterName}" value="${_csrf.token}"/>
+            </#if>
+            <span>С отмеченными:</span>
+            <button type="submit" name="action" value="complete" class="action-btn toggle">Завершить</button>
+            <button type="submit" name="action" value="reopen" class="action-btn toggle">Возобновить</button>
+            <button type="submit" name="action" value="clear-reminders" class="action-btn edit">Снять напоминания</button>
+            <button type="submit" name="action" value="delete" class="action-btn delete"
+                    onclick="return confirm('Удалить отмеченные заметки?')">Удалить</button>
         </form>
 
         <table>
             <thead>
                 <tr>
-                    <th>Заголовок</th>
-                    <th>Дата создания</th>
-                    <th>Статус</th>
+                    <th><input type="checkbox" id="select-all" title="Отметить все"></th>
+                    <th><@sortLink key="title" label="Заголовок"/></th>
+                    <th><@sortLink key="createdDate" label="Дата создания"/></th>
+                    <th><@sortLink key="status" label="Статус"/></th>
                     <th>Изображение</th>
                     <th>Действия</th>
                 </tr>
@@ -38,14 +68,28 @@
             <tbody>
                 <#list notes as note>
                 <tr>
-                    <td>${note.title}</td>
+                    <td><input type="checkbox" name="ids" value="${note.id?c}" form="bulk-form" class="select-note"></td>
+                    <td>
+                        ${note.title}
+                        <#if note.snippet??>
+                            <#if query?? && query?has_content>
+                                <div class="snippet">${note.snippet?html?replace('[[', '<mark>')?replace(']]', '</mark>')}</div>
+                            <#else>
+                                <div class="snippet">${note.snippet?html}</div>
+                            </#if>
+                        </#if>
+                    </td>
                     <!-- Исправлено форматирование даты -->
                     <td>${note.createdDate?date?string('dd.MM.yyyy')}</td>
                     <td class="${note.completed?then('completed', 'pending')}">
                         ${note.completed?then('✓ Завершено', '✗ В процессе')}
                     </td>
                     <td>
-                        <#if note.imagePath??>
+                        <#if note.thumbnailPath??>
+                            <a href="/images/${note.imagePath}" target="_blank" class="image-link">
+                                <img src="/images/${note.thumbnailPath}" alt="" class="thumbnail" loading="lazy">
+                            </a>
+                        <#elseif note.imagePath??>
                             <a href="/images/${note.imagePath}" target="_blank" class="image-link">Просмотр</a>
                         <#else>
                             -
@@ -55,11 +99,15 @@
                         <a href="/notes/${note.id}" class="action-btn view">Просмотр</a>
                         <a href="/notes/edit/${note.id}" class="action-btn edit">Изменить</a>
                         <form action="/notes/delete/${note.id}" method="post" class="inline-form">
-                            <input type="hidden" name="${_csrf.parameterName}" value="${_csrf.token}"/>
+                            <#if _csrf??>
+                                <input type="hidden" name="${_csrf.parameterName}" value="${_csrf.token}"/>
+                            </#if>
                             <button type="submit" class="action-btn delete">Удалить</button>
                         </form>
                         <form action="/notes/toggle/${note.id}" method="post" class="inline-form">
-                            <input type="hidden" name="${_csrf.parameterName}" value="${_csrf.token}"/>
+                            <#if _csrf??>
+                                <input type="hidden" name="${_csrf.parameterName}" value="${_csrf.token}"/>
+                            </#if>
                             <button type="submit" class="action-btn toggle">
                                 ${note.completed?then('Возобновить', 'Завершить')}
                             </button>
@@ -68,7 +116,7 @@
                 </tr>
                 <#else>
                 <tr>
-                    <td colspan="5" class="no-notes">Заметки не найдены</td>
+                    <td colspan="6" class="no-notes">Заметки не найдены</td>
                 </tr>
                 </#list>
             </tbody>
@@ -76,19 +124,81 @@
 
         <#if notes?size gt 0>
             <div class="pagination">
-                <#if currentPage gt 0>
-                    <a href="/notes?page=${currentPage - 1}&sort=${sort}&direction=${direction}&query=${query!''}"
-                       class="page-link">← Назад</a>
-                </#if>
+                <#if query?? && query?has_content>
+                    <#if currentPage gt 0>
+                        <a href="/notes?page=${currentPage - 1}&query=${query?url}" class="page-link">← Назад</a>
+                    </#if>
 
-                <span class="page-info">Страница ${currentPage + 1} из ${totalPages}</span>
+                    <span class="page-info">Страница ${currentPage + 1}</span>
 
-                <#if currentPage lt totalPages - 1>
-                    <a href="/notes?page=${currentPage + 1}&sort=${sort}&direction=${direction}&query=${query!''}"
-                       class="page-link">Вперед →</a>
+                    <#if hasNext>
+                        <a href="/notes?page=${currentPage + 1}&query=${query?url}" class="page-link">Вперед →</a>
+                    </#if>
+                <#else>
+                    <#if prevCursor??>
+                        <a href="/notes?sort=${sort}&direction=${direction}&cursor=${prevCursor}" class="page-link">← Назад</a>
+                    </#if>
+
+                    <#if nextCursor??>
+                        <a href="/notes?sort=${sort}&direction=${direction}&cursor=${nextCursor}" class="page-link">Вперед →</a>
+                    </#if>
                 </#if>
             </div>
         </#if>
     </div>
+    <script>
+        (function () {
+            var input = document.getElementById('search-input');
+            var list = document.getElementById('suggestions');
+            var timer = null;
+            var controller = null;
+
+            function render(items) {
+                list.innerHTML = '';
+                items.forEach(function (item) {
+                    var link = document.createElement('a');
+                    link.href = '/notes/' + item.id;
+                    link.textContent = item.title;
+                    if (item.completed) {
+                        link.className = 'completed';
+                    }
+                    var li = document.createElement('li');
+                    li.appendChild(link);
+                    list.appendChild(li);
+                });
+                list.hidden = items.length === 0;
+            }
+
+            input.addEventListener('input', function () {
+                clearTimeout(timer);
+                var q = input.value.trim();
+                if (!q) {
+                    render([]);
+                    return;
+                }
+                // Запрос отправляется после паузы в наборе, предыдущий незавершённый отменяется
+                timer = setTimeout(function () {
+                    if (controller) {
+                        controller.abort();
+                    }
+                    controller = new AbortController();
+                    fetch('/notes/suggest?q=' + encodeURIComponent(q), {signal: controller.signal})
+                        .then(function (r) { return r.ok ? r.json() : []; })
+                        .then(render)
+                        .catch(function () {});
+                }, 150);
+            });
+
+            input.addEventListener('blur', function () {
+                setTimeout(function () { list.hidden = true; }, 200);
+            });
+
+            document.getElementById('select-all').addEventListener('change', function (event) {
+                document.querySelectorAll('.select-note').forEach(function (box) {
+                    box.checked = event.target.checked;
+                });
+            });
+        })();
+    </script>
 </body>
 </html>
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.notesystem.config;
+
+import com.notesystem.dto.ReminderEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Проверка двоичного формата событий напоминаний.
+ */
+class ReminderEventDeserializerTest {
+
+    private final ReminderEventSerializer serializer = new ReminderEventSerializer();
+    private final ReminderEventDeserializer deserializer = new ReminderEventDeserializer();
+
+    @Test
+    void readsSerializedDigest() {
+        ReminderEvent event = new ReminderEvent(ReminderEvent.Type.DUE, 7L, List.of(
+                new ReminderEvent.Item(1L, "Купить хлеб", LocalDateTime.of(2024, 5, 1, 9, 30)),
+                new ReminderEvent.Item(2L, "Позвонить", LocalDateTime.of(2024, 5, 1, 10, 0))));
+
+        assertEquals(event, deserializer.deserialize("topic", serializer.serialize("topic", event)));
+    }
+
+    @Test
+    void rejectsEmptyPayload() {
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("topic", new byte[0]));
+    }
+
+    @Test
+    void rejectsTruncatedPayload() {
+        ReminderEvent event = ReminderEvent.scheduled(1L, 7L, "Купить хлеб", LocalDateTime.of(2024, 5, 1, 9, 30));
+        byte[] data = serializer.serialize("topic", event);
+
+        for (int length = 1; length < data.length; length++) {
+            byte[] truncated = Arrays.copyOf(data, length);
+            assertThrows(SerializationException.class, () -> deserializer.deserialize("topic", truncated),
+                    "length " + length);
+        }
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("topic", new byte[]{9, 0}));
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("topic", new byte[]{2, 0, 7, 0}));
+    }
+
+    @Test
+    void rejectsLengthsBeyondPayload() {
+        // Версия, тип, userId = 7, число элементов: отрицательное (varint из десяти байт) и 2^31 - 1
+        byte[] negativeCount = {1, 0, 7, -1, -1, -1, -1, -1, -1, -1, -1, -1, 1};
+        byte[] hugeCount = {1, 0, 7, -1, -1, -1, -1, 7};
+        // Один элемент: noteId = 1, срок 0, заголовок длиной 100 при трёх оставшихся байтах
+        byte[] longTitle = {1, 0, 7, 1, 1, 0, 100, 'a', 'b', 'c'};
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("topic", negativeCount));
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("topic", hugeCount));
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("topic", longTitle));
+    }
+
+    @Test
+    void rejectsDueTimeOutOfRange() {
+        // Срок Long.MAX_VALUE секунд в zigzag varint
+        byte[] data = {1, 0, 7, 1, 1, -2, -1, -1, -1, -1, -1, -1, -1, -1, 1, 0};
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("topic", data));
+    }
+}
@@ -0,0 +1,114 @@
+package com.notesystem.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notesystem.dto.AuthPrincipal;
+import com.notesystem.model.User;
+import com.notesystem.repository.TokenRepository;
+import com.notesystem.repository.UserRepository;
+import com.notesystem.service.TokenDenylist;
+import com.notesystem.service.TokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Проверка аутентификации запросов API по Bearer-токену.
+ */
+class TokenAuthenticationFilterTest {
+
+    private final TokenRepository tokenRepository = mock(TokenRepository.class);
+    private final TokenService tokenService = new TokenService(tokenRepository, mock(UserRepository.class),
+            new TokenDenylist(tokenRepository), new ObjectMapper(),
+            Base64.getEncoder().encodeToString(new byte[32]), "notes", Duration.ofMinutes(15), Duration.ofDays(30));
+    private final List<String> rejected = new ArrayList<>();
+    private final TokenAuthenticationFilter filter = new TokenAuthenticationFilter(tokenService,
+            (request, response, e) -> {
+                rejected.add(e.getMessage());
+                response.sendError(401);
+            });
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatesValidToken() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request("Bearer " + tokenService.issue(user()).accessToken()),
+                new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        AuthPrincipal principal = (AuthPrincipal) authentication.getPrincipal();
+        assertEquals(7L, principal.id());
+        assertTrue(authentication.getCredentials() instanceof TokenService.AccessToken);
+    }
+
+    @Test
+    void passesRequestWithoutBearerToken() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request(null), new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertTrue(rejected.isEmpty());
+    }
+
+    @Test
+    void rejectsDenylistedToken() throws Exception {
+        String accessToken = tokenService.issue(user()).accessToken();
+        tokenService.logout(tokenService.verify(accessToken), null);
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("Bearer " + accessToken), response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(401, response.getStatus());
+        assertEquals(List.of("Токен отозван"), rejected);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void rejectsMalformedToken() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("bearer not-a-token"), response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(401, response.getStatus());
+    }
+
+    private static MockHttpServletRequest request(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/notes");
+        if (authorization != null) {
+            request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        return request;
+    }
+
+    private static User user() {
+        User user = new User("user7", "password");
+        user.setId(7L);
+        return user;
+    }
+}
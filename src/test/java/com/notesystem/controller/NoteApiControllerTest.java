@@ -0,0 +1,151 @@
+package com.notesystem.controller;
+
+import com.notesystem.dto.AuthPrincipal;
+import com.notesystem.dto.NoteField;
+import com.notesystem.dto.NoteOperation;
+import com.notesystem.dto.NoteOperationResult;
+import com.notesystem.dto.NotePage;
+import com.notesystem.model.User;
+import com.notesystem.service.NoteApiService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверка ETag и If-Match, выбора полей и пакетных операций JSON API.
+ */
+class NoteApiControllerTest {
+
+    private final NoteApiService noteApiService = mock(NoteApiService.class);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new NoteApiController(noteApiService))
+            .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+            .build();
+
+    @BeforeEach
+    void authenticate() {
+        AuthPrincipal principal = new AuthPrincipal(7L, "user7", User.Role.USER, true);
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.authorities()));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void answersNotModifiedForCurrentVersion() throws Exception {
+        when(noteApiService.get(eq(7L), eq(5L), any()))
+                .thenReturn(Optional.of(Map.of("id", 5L, "version", 3L, "title", "Купить хлеб")));
+
+        mockMvc.perform(get("/api/notes/5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5.3\""))
+                .andExpect(jsonPath("$.title").value("Купить хлеб"));
+        mockMvc.perform(get("/api/notes/5").header(HttpHeaders.IF_NONE_MATCH, "\"5.3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/notes/5").header(HttpHeaders.IF_NONE_MATCH, "\"5.2\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void selectsRequestedFields() throws Exception {
+        when(noteApiService.list(eq(7L), any(), isNull(), isNull()))
+                .thenReturn(new NotePage(List.of(Map.of("id", 1L, "version", 0L, "title", "Купить хлеб")), "Mg"));
+
+        mockMvc.perform(get("/api/notes").param("fields", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].title").value("Купить хлеб"))
+                .andExpect(jsonPath("$.items[0].content").doesNotExist())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+        verify(noteApiService).list(7L, Set.of(NoteField.ID, NoteField.VERSION, NoteField.TITLE), null, null);
+
+        mockMvc.perform(get("/api/notes").param("fields", "title,owner"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Неизвестное поле: owner"));
+    }
+
+    @Test
+    void passesIfMatchVersionToUpdate() throws Exception {
+        when(noteApiService.apply(eq(7L), any())).thenReturn(NoteOperationResult.updated(5L, 4L));
+
+        mockMvc.perform(put("/api/notes/5")
+                        .header(HttpHeaders.IF_MATCH, "\"5.3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Купить хлеб\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5.4\""));
+
+        ArgumentCaptor<NoteOperation> operation = ArgumentCaptor.forClass(NoteOperation.class);
+        verify(noteApiService).apply(eq(7L), operation.capture());
+        assertEquals(NoteOperation.Type.UPDATE, operation.getValue().op());
+        assertEquals(3L, operation.getValue().version());
+        assertNull(operation.getValue().note().getReminder());
+    }
+
+    @Test
+    void treatsForeignETagAsMismatch() throws Exception {
+        when(noteApiService.apply(eq(7L), any())).thenReturn(NoteOperationResult.conflict(5L, 3L));
+
+        mockMvc.perform(put("/api/notes/5")
+                        .header(HttpHeaders.IF_MATCH, "\"6.3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Купить хлеб\"}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.version").value(3));
+
+        ArgumentCaptor<NoteOperation> operation = ArgumentCaptor.forClass(NoteOperation.class);
+        verify(noteApiService).apply(eq(7L), operation.capture());
+        assertEquals(-1L, operation.getValue().version());
+    }
+
+    @Test
+    void returnsResultOfEachBatchOperation() throws Exception {
+        when(noteApiService.batch(eq(7L), any())).thenReturn(List.of(
+                NoteOperationResult.created(10L, 0L),
+                NoteOperationResult.notFound(3L)));
+
+        mockMvc.perform(post("/api/notes/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"op\":\"create\",\"note\":{\"title\":\"Новая\"}},"
+                                + "{\"op\":\"delete\",\"id\":3}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[0].id").value(10))
+                .andExpect(jsonPath("$[1].status").value(404));
+
+        ArgumentCaptor<List<NoteOperation>> operations = ArgumentCaptor.captor();
+        verify(noteApiService).batch(eq(7L), operations.capture());
+        assertEquals(NoteOperation.Type.DELETE, operations.getValue().get(1).op());
+        assertEquals(3L, operations.getValue().get(1).id());
+    }
+}
@@ -0,0 +1,126 @@
+package com.notesystem.repository;
+
+import com.notesystem.dto.DueReminder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка массовых операций над заметками на PostgreSQL: чужие id пропускаются,
+ * удаление снимает ссылки на изображения.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class NoteBulkRepositoryTest {
+
+    private static final LocalDateTime REMINDER = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private NoteBulkRepository repository;
+    private long owner;
+    private long stranger;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(TestDatabase.dataSource());
+        repository = new NoteBulkRepository(jdbcTemplate);
+        TestDatabase.clear(jdbcTemplate);
+        jdbcTemplate.execute("TRUNCATE stored_blobs");
+        owner = TestDatabase.insertUser(jdbcTemplate, "owner");
+        stranger = TestDatabase.insertUser(jdbcTemplate, "stranger");
+    }
+
+    @Test
+    void setCompletedChangesOnlyOwnNotesWithOtherStatus() {
+        long open = note(owner, "Открыта", REMINDER, null);
+        long done = note(owner, "Выполнена", null, null);
+        jdbcTemplate.update("UPDATE notes SET completed = true WHERE id = ?", done);
+        long foreign = note(stranger, "Чужая", null, null);
+
+        List<DueReminder> changed = repository.setCompleted(owner, List.of(open, done, foreign), true);
+
+        assertEquals(List.of(new DueReminder(open, REMINDER)), changed);
+        assertTrue(completed(open));
+        assertFalse(completed(foreign));
+        assertEquals(1L, version(open));
+        assertEquals(0L, version(done));
+        assertEquals(0L, version(foreign));
+    }
+
+    @Test
+    void clearRemindersSkipsForeignNotes() {
+        long own = note(owner, "Своя", REMINDER, null);
+        jdbcTemplate.update("UPDATE notes SET reminder_lease_owner = 'node', reminder_lease_until = ? WHERE id = ?",
+                Timestamp.valueOf(REMINDER), own);
+        long withoutReminder = note(owner, "Без напоминания", null, null);
+        long foreign = note(stranger, "Чужая", REMINDER, null);
+
+        List<Long> cleared = repository.clearReminders(owner, List.of(own, withoutReminder, foreign));
+
+        assertEquals(List.of(own), cleared);
+        assertNull(jdbcTemplate.queryForObject("SELECT reminder FROM notes WHERE id = ?", Timestamp.class, own));
+        assertNull(jdbcTemplate.queryForObject(
+                "SELECT reminder_lease_owner FROM notes WHERE id = ?", String.class, own));
+        assertEquals(Timestamp.valueOf(REMINDER),
+                jdbcTemplate.queryForObject("SELECT reminder FROM notes WHERE id = ?", Timestamp.class, foreign));
+    }
+
+    @Test
+    void deleteSkipsForeignNotesAndReleasesImages() {
+        StoredBlobRepository blobs = new StoredBlobRepository(jdbcTemplate);
+        long first = note(owner, "Первая", null, "a.png");
+        long second = note(owner, "Вторая", null, "a.png");
+        long third = note(owner, "Третья", null, "b.png");
+        long plain = note(owner, "Без изображения", null, null);
+        long foreign = note(stranger, "Чужая", null, "a.png");
+        jdbcTemplate.update("INSERT INTO stored_blobs (path, ref_count) VALUES ('a.png', 3), ('b.png', 1)");
+
+        List<NoteBulkRepository.DeletedNote> deleted =
+                repository.delete(owner, List.of(first, second, third, plain, foreign));
+        // Так же снимает ссылки NoteService.deleteNotes
+        blobs.releaseAll(deleted.stream().map(NoteBulkRepository.DeletedNote::imagePath)
+                .filter(Objects::nonNull).toList());
+
+        assertEquals(List.of(first, second, third, plain),
+                deleted.stream().map(NoteBulkRepository.DeletedNote::id).sorted().toList());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM notes WHERE id = ?", Integer.class, foreign));
+        assertEquals(1, refCount("a.png"));
+        assertNull(releasedAt("a.png"));
+        assertEquals(0, refCount("b.png"));
+        assertNotNull(releasedAt("b.png"));
+    }
+
+    private long note(long userId, String title, LocalDateTime reminder, String imagePath) {
+        long id = TestDatabase.insertNote(jdbcTemplate, userId, title);
+        jdbcTemplate.update("UPDATE notes SET reminder = ?, image_path = ? WHERE id = ?",
+                reminder != null ? Timestamp.valueOf(reminder) : null, imagePath, id);
+        return id;
+    }
+
+    private boolean completed(long noteId) {
+        return jdbcTemplate.queryForObject("SELECT completed FROM notes WHERE id = ?", Boolean.class, noteId);
+    }
+
+    private long version(long noteId) {
+        return jdbcTemplate.queryForObject("SELECT version FROM notes WHERE id = ?", Long.class, noteId);
+    }
+
+    private int refCount(String path) {
+        return jdbcTemplate.queryForObject("SELECT ref_count FROM stored_blobs WHERE path = ?", Integer.class, path);
+    }
+
+    private Timestamp releasedAt(String path) {
+        return jdbcTemplate.queryForObject("SELECT released_at FROM stored_blobs WHERE path = ?",
+                Timestamp.class, path);
+    }
+}
@@ -0,0 +1,118 @@
+package com.notesystem.repository;
+
+import com.notesystem.dto.ClaimedReminder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Проверка захвата напоминаний с SKIP LOCKED и снятия доставленных напоминаний на PostgreSQL.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ReminderClaimRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private ReminderClaimRepository repository;
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(TestDatabase.dataSource());
+        repository = new ReminderClaimRepository(jdbcTemplate);
+        TestDatabase.clear(jdbcTemplate);
+        userId = TestDatabase.insertUser(jdbcTemplate, "reminders");
+    }
+
+    @Test
+    void claimsOnlyDueOpenUnleasedReminders() {
+        long due = noteWithReminder("Пора", NOW.minusMinutes(1));
+        noteWithReminder("Позже", NOW.plusMinutes(1));
+        long completed = noteWithReminder("Сделано", NOW.minusMinutes(1));
+        jdbcTemplate.update("UPDATE notes SET completed = true WHERE id = ?", completed);
+        long leased = noteWithReminder("Занято", NOW.minusMinutes(1));
+        jdbcTemplate.update("UPDATE notes SET reminder_lease_owner = 'other', reminder_lease_until = ? WHERE id = ?",
+                Timestamp.valueOf(NOW.plusSeconds(30)), leased);
+        long expired = noteWithReminder("Аренда истекла", NOW.minusMinutes(2));
+        jdbcTemplate.update("UPDATE notes SET reminder_lease_owner = 'other', reminder_lease_until = ? WHERE id = ?",
+                Timestamp.valueOf(NOW.minusSeconds(1)), expired);
+
+        List<ClaimedReminder> claimed = repository.claimDue("me", NOW, NOW.plusMinutes(1), 10);
+
+        // RETURNING не сохраняет порядок подзапроса
+        assertEquals(Set.of(expired, due), claimed.stream().map(ClaimedReminder::noteId).collect(Collectors.toSet()));
+        assertEquals("me", leaseOwner(due));
+        assertEquals("other", leaseOwner(leased));
+    }
+
+    @Test
+    void skipsRowsLockedByAnotherReplica() throws SQLException {
+        long locked = noteWithReminder("Первое", NOW.minusMinutes(2));
+        long free = noteWithReminder("Второе", NOW.minusMinutes(1));
+
+        try (Connection other = TestDatabase.dataSource().getConnection()) {
+            other.setAutoCommit(false);
+            try (PreparedStatement lock = other.prepareStatement("SELECT id FROM notes WHERE id = ? FOR UPDATE")) {
+                lock.setLong(1, locked);
+                lock.executeQuery().close();
+            }
+
+            List<ClaimedReminder> claimed = repository.claimDue("me", NOW, NOW.plusMinutes(1), 10);
+
+            assertEquals(List.of(free), claimed.stream().map(ClaimedReminder::noteId).toList());
+            other.rollback();
+        }
+        assertNull(leaseOwner(locked));
+    }
+
+    @Test
+    void marksDeliveredOnlyUnchangedOpenReminders() {
+        long delivered = noteWithReminder("Доставлено", NOW.minusMinutes(3));
+        long moved = noteWithReminder("Перенесено", NOW.minusMinutes(2));
+        long completed = noteWithReminder("Выполнено", NOW.minusMinutes(1));
+        List<ClaimedReminder> claimed = repository.claimDue("me", NOW, NOW.plusMinutes(1), 10);
+        jdbcTemplate.update("UPDATE notes SET reminder = ? WHERE id = ?", Timestamp.valueOf(NOW.plusHours(1)), moved);
+        jdbcTemplate.update("UPDATE notes SET completed = true WHERE id = ?", completed);
+
+        List<Long> marked = repository.markDelivered("me", claimed);
+
+        assertEquals(List.of(delivered), marked);
+        assertNull(jdbcTemplate.queryForObject("SELECT reminder FROM notes WHERE id = ?", Timestamp.class, delivered));
+        assertEquals(Timestamp.valueOf(NOW.minusMinutes(1)),
+                jdbcTemplate.queryForObject("SELECT reminder FROM notes WHERE id = ?", Timestamp.class, completed));
+    }
+
+    @Test
+    void leavesRemindersClaimedByAnotherOwner() {
+        long note = noteWithReminder("Пора", NOW.minusMinutes(1));
+        List<ClaimedReminder> claimed = repository.claimDue("me", NOW, NOW.plusMinutes(1), 10);
+        // Аренда истекла, и напоминание перехватил другой экземпляр
+        repository.claimDue("other", NOW.plusMinutes(2), NOW.plusMinutes(3), 10);
+
+        assertEquals(List.of(), repository.markDelivered("me", claimed));
+        assertEquals("other", leaseOwner(note));
+    }
+
+    private long noteWithReminder(String title, LocalDateTime reminder) {
+        long id = TestDatabase.insertNote(jdbcTemplate, userId, title);
+        jdbcTemplate.update("UPDATE notes SET reminder = ? WHERE id = ?", Timestamp.valueOf(reminder), id);
+        return id;
+    }
+
+    private String leaseOwner(long noteId) {
+        return jdbcTemplate.queryForObject("SELECT reminder_lease_owner FROM notes WHERE id = ?", String.class, noteId);
+    }
+}
@@ -0,0 +1,51 @@
+package com.notesystem.repository;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import javax.sql.DataSource;
+
+/**
+ * База PostgreSQL для тестов репозиториев: один контейнер на запуск, схема из миграций Flyway.
+ * Классы с этими тестами помечаются {@code @Testcontainers(disabledWithoutDocker = true)}.
+ */
+final class TestDatabase {
+
+    private static DataSource dataSource;
+
+    private TestDatabase() {
+    }
+
+    static synchronized DataSource dataSource() {
+        if (dataSource == null) {
+            PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13");
+            postgres.start();
+            DriverManagerDataSource started = new DriverManagerDataSource(
+                    postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+            Flyway.configure().dataSource(started).locations("classpath:db").load().migrate();
+            dataSource = started;
+        }
+        return dataSource;
+    }
+
+    /**
+     * Удаляет пользователей вместе с их заметками, оставляя схему и последовательности.
+     */
+    static void clear(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("TRUNCATE users CASCADE");
+    }
+
+    static long insertUser(JdbcTemplate jdbcTemplate, String username) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO users (username, password) VALUES (?, 'x') RETURNING id", Long.class, username);
+    }
+
+    static long insertNote(JdbcTemplate jdbcTemplate, long userId, String title) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO notes (id, user_id, title, created_date)
+                VALUES (nextval('notes_id_seq'), ?, ?, CURRENT_DATE)
+                RETURNING id
+                """, Long.class, userId, title);
+    }
+}
@@ -0,0 +1,86 @@
+package com.notesystem.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Проверка триггеров счётчика изменений заметок из миграций на PostgreSQL.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class UserNotesVersionTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private long userId;
+    private long otherId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(TestDatabase.dataSource());
+        TestDatabase.clear(jdbcTemplate);
+        userId = TestDatabase.insertUser(jdbcTemplate, "versions");
+        otherId = TestDatabase.insertUser(jdbcTemplate, "other");
+    }
+
+    @Test
+    void insertAndUpdateBumpVersionOncePerStatement() {
+        assertEquals(0, version(userId));
+
+        long first = TestDatabase.insertNote(jdbcTemplate, userId, "Первая");
+        TestDatabase.insertNote(jdbcTemplate, userId, "Вторая");
+        assertEquals(2, version(userId));
+
+        jdbcTemplate.update("UPDATE notes SET title = 'Изменена' WHERE id = ?", first);
+        assertEquals(3, version(userId));
+
+        jdbcTemplate.update("UPDATE notes SET completed = true WHERE user_id = ?", userId);
+        assertEquals(4, version(userId));
+        assertEquals(0, version(otherId));
+    }
+
+    @Test
+    void leaseOnlyUpdateKeepsVersion() {
+        long note = TestDatabase.insertNote(jdbcTemplate, userId, "С напоминанием");
+        jdbcTemplate.update("UPDATE notes SET reminder = now() WHERE id = ?", note);
+        long before = version(userId);
+
+        jdbcTemplate.update("UPDATE notes SET reminder_lease_owner = 'node', "
+                + "reminder_lease_until = now() + interval '1 minute' WHERE id = ?", note);
+        jdbcTemplate.update("UPDATE notes SET title = title WHERE id = ?", note);
+
+        assertEquals(before, version(userId));
+    }
+
+    @Test
+    void statementOverSeveralUsersBumpsEachUser() {
+        TestDatabase.insertNote(jdbcTemplate, userId, "Своя");
+        TestDatabase.insertNote(jdbcTemplate, otherId, "Чужая");
+
+        jdbcTemplate.update("DELETE FROM notes");
+
+        assertEquals(2, version(userId));
+        assertEquals(2, version(otherId));
+    }
+
+    @Test
+    void userDeleteCascadesNotesAndCounter() {
+        TestDatabase.insertNote(jdbcTemplate, userId, "Первая");
+        TestDatabase.insertNote(jdbcTemplate, userId, "Вторая");
+
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM notes WHERE user_id = ?", Integer.class, userId));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM user_notes_version WHERE user_id = ?", Integer.class, userId));
+    }
+
+    // Тот же запрос, что и UserRepository.findNotesVersion
+    private long version(long id) {
+        return jdbcTemplate.queryForObject(
+                "SELECT coalesce((SELECT version FROM user_notes_version WHERE user_id = ?), 0)", Long.class, id);
+    }
+}
@@ -0,0 +1,145 @@
+package com.notesystem.scheduler;
+
+import org.junit.jupiter.api.Test;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка колеса таймеров на искусственных часах с тиком в одну секунду.
+ */
+class TimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    @Test
+    void firesAtDeadlineAndNotBefore() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        wheel.schedule(1, 5 * TICK);
+
+        assertEquals(List.of(), wheel.advance(5 * TICK - 1));
+        assertEquals(List.of(1L), wheel.advance(5 * TICK));
+        assertEquals(0, wheel.size());
+        assertFalse(wheel.contains(1));
+    }
+
+    @Test
+    void roundsPartialTickUp() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        wheel.schedule(1, 2 * TICK + 1);
+
+        assertEquals(List.of(), wheel.advance(2 * TICK));
+        assertEquals(List.of(1L), wheel.advance(3 * TICK));
+    }
+
+    @Test
+    void wrapsAroundLowestLevel() {
+        // Старт незадолго до конца оборота нижнего уровня: срок попадает в начало следующего оборота
+        long start = 60 * TICK;
+        TimingWheel wheel = new TimingWheel(TICK, start);
+        wheel.schedule(1, start + 10 * TICK);
+
+        assertEquals(List.of(), wheel.advance(start + 9 * TICK));
+        assertEquals(List.of(1L), wheel.advance(start + 10 * TICK));
+    }
+
+    @Test
+    void cascadesEveryLevelAtExactTick() {
+        long start = 37 * TICK;
+        TimingWheel wheel = new TimingWheel(TICK, start);
+        long[] deltas = {1, 63, 64, 65, 127, 4095, 4096, 4097, 262_143, 262_144, 300_000};
+        for (int i = 0; i < deltas.length; i++) {
+            assertTrue(wheel.schedule(i, start + deltas[i] * TICK));
+        }
+
+        Map<Long, Long> firedAt = new HashMap<>();
+        for (long tick = 1; tick <= 300_000; tick++) {
+            for (Long id : wheel.advance(start + tick * TICK)) {
+                firedAt.put(id, tick);
+            }
+        }
+
+        for (int i = 0; i < deltas.length; i++) {
+            assertEquals(deltas[i], firedAt.get((long) i), "delta " + deltas[i]);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advancesOverManyTicksAtOnce() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        wheel.schedule(1, 10 * TICK);
+        wheel.schedule(2, 5000 * TICK);
+        wheel.schedule(3, 5001 * TICK);
+
+        List<Long> fired = wheel.advance(5000 * TICK);
+
+        assertEquals(List.of(1L, 2L), fired);
+        assertEquals(List.of(3L), wheel.advance(5001 * TICK));
+    }
+
+    @Test
+    void cancelRemovesTimer() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        wheel.schedule(1, 3 * TICK);
+        wheel.schedule(2, 3 * TICK);
+        wheel.schedule(3, 100 * TICK);
+
+        assertTrue(wheel.cancel(1));
+        assertTrue(wheel.cancel(3));
+        assertFalse(wheel.cancel(1));
+        assertFalse(wheel.cancel(42));
+
+        assertEquals(List.of(2L), wheel.advance(3 * TICK));
+        assertEquals(List.of(), wheel.advance(200 * TICK));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rescheduleMovesTimer() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        wheel.schedule(1, 10 * TICK);
+        wheel.schedule(2, 10 * TICK);
+
+        wheel.schedule(1, 5000 * TICK);
+        wheel.schedule(2, 3 * TICK);
+        assertEquals(2, wheel.size());
+
+        assertEquals(List.of(2L), wheel.advance(3 * TICK));
+        assertEquals(List.of(), wheel.advance(4999 * TICK));
+        assertEquals(List.of(1L), wheel.advance(5000 * TICK));
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextTick() {
+        long start = 100 * TICK;
+        TimingWheel wheel = new TimingWheel(TICK, start);
+        wheel.schedule(1, start - 50 * TICK);
+        wheel.schedule(2, start);
+
+        assertEquals(List.of(), wheel.advance(start));
+        assertEquals(List.of(1L, 2L), sorted(wheel.advance(start + TICK)));
+    }
+
+    @Test
+    void rejectsDeadlineBeyondSpan() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        assertTrue(wheel.schedule(1, 10 * TICK));
+
+        assertFalse(wheel.schedule(1, wheel.spanMillis()));
+        assertFalse(wheel.contains(1));
+        assertFalse(wheel.schedule(2, wheel.spanMillis() + TICK));
+        assertEquals(0, wheel.size());
+
+        assertTrue(wheel.schedule(3, wheel.spanMillis() - TICK));
+        assertTrue(wheel.contains(3));
+    }
+
+    private static List<Long> sorted(List<Long> ids) {
+        return ids.stream().sorted().toList();
+    }
+}
@@ -0,0 +1,106 @@
+package com.notesystem.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка вытеснения локального кеша объектов и чтения уже открытых копий.
+ */
+class BlobCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void loadsObjectOnce() throws IOException {
+        BlobCache cache = new BlobCache(directory, 100);
+
+        try (LocalFile first = cache.open("ab/cd/a.png", loader("aaaa"))) {
+            assertEquals("aaaa", read(first));
+        }
+        try (LocalFile second = cache.open("ab/cd/a.png", loader("другое"))) {
+            assertEquals("aaaa", read(second));
+            assertTrue(second.evictable());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evictsLeastRecentlyRead() throws IOException {
+        BlobCache cache = new BlobCache(directory, 10);
+        cache.open("a", loader("aaaa")).close();
+        cache.open("b", loader("bbbb")).close();
+        // Чтение a делает вытесняемым b
+        cache.open("a", loader("aaaa")).close();
+
+        cache.open("c", loader("cccc")).close();
+
+        assertTrue(Files.exists(directory.resolve("a")));
+        assertFalse(Files.exists(directory.resolve("b")));
+        assertTrue(Files.exists(directory.resolve("c")));
+        cache.open("b", loader("bbbb")).close();
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void openCopySurvivesEviction() throws IOException {
+        BlobCache cache = new BlobCache(directory, 10);
+
+        try (LocalFile served = cache.open("a", loader("aaaaaaaa"))) {
+            cache.open("b", loader("bbbbbbbb")).close();
+
+            assertFalse(Files.exists(directory.resolve("a")));
+            assertEquals("aaaaaaaa", read(served));
+        }
+    }
+
+    @Test
+    void reloadsCopyDeletedBehindCache() throws IOException {
+        BlobCache cache = new BlobCache(directory, 100);
+        cache.open("a", loader("aaaa")).close();
+        Files.delete(directory.resolve("a"));
+
+        try (LocalFile reloaded = cache.open("a", loader("aaaa"))) {
+            assertEquals("aaaa", read(reloaded));
+        }
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void keepsDownloadedCopiesAcrossRestart() throws IOException {
+        new BlobCache(directory, 100).open("ab/cd/a.png", loader("aaaa")).close();
+
+        BlobCache restarted = new BlobCache(directory, 100);
+        try (LocalFile file = restarted.open("ab/cd/a.png", loader("другое"))) {
+            assertEquals("aaaa", read(file));
+        }
+        assertEquals(1, loads.get());
+    }
+
+    private BlobCache.Loader loader(String content) {
+        return target -> {
+            loads.incrementAndGet();
+            Files.writeString(target, content);
+        };
+    }
+
+    private static String read(LocalFile file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) file.size());
+        while (buffer.hasRemaining()) {
+            file.channel().read(buffer, buffer.position());
+        }
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,49 @@
+package com.notesystem.service;
+
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Проверка разбора CSV и ограничений длины поля и записи.
+ */
+class CsvRowReaderTest {
+
+    @Test
+    void readsQuotedFieldsWithDelimitersAndLineBreaks() throws IOException {
+        List<List<String>> rows = read("\uFEFFtitle;content\r\n\"Купить; хлеб\";\"и \"\"молоко\"\"\nи сыр\"\n");
+
+        assertEquals(List.of(List.of("title", "content"), List.of("Купить; хлеб", "и \"молоко\"\nи сыр")), rows);
+    }
+
+    @Test
+    void rejectsFieldLeftOpenByQuote() {
+        String csv = "title,content\nA,\"не закрыта\n" + "x".repeat(CsvRowReader.MAX_FIELD_LENGTH);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> read(csv));
+        assertEquals("Запись 2: поле длиннее " + CsvRowReader.MAX_FIELD_LENGTH
+                + " символов, возможно, не закрыта кавычка", e.getMessage());
+    }
+
+    @Test
+    void rejectsRowLongerThanLimit() {
+        String csv = "title\n" + ",".repeat(CsvRowReader.MAX_ROW_LENGTH) + "\n";
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> read(csv));
+        assertEquals("Запись 2 длиннее " + CsvRowReader.MAX_ROW_LENGTH
+                + " символов, возможно, не закрыта кавычка", e.getMessage());
+    }
+
+    private static List<List<String>> read(String csv) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        CsvRowReader.read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                (rowNumber, cells) -> rows.add(List.copyOf(cells)));
+        return rows;
+    }
+}
@@ -0,0 +1,93 @@
+package com.notesystem.service;
+
+import com.notesystem.dto.ExportFormat;
+import com.notesystem.dto.NoteExportRow;
+import com.notesystem.repository.NoteExportRepository;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Проверка содержимого выгрузок на заранее заданных строках.
+ */
+class ExportServiceTest {
+
+    private final NoteExportRepository repository = mock(NoteExportRepository.class);
+    private final ExportService exportService = new ExportService(repository, 10);
+
+    @BeforeEach
+    void stubRows() {
+        doAnswer(invocation -> {
+            Consumer<NoteExportRow> consumer = invocation.getArgument(1);
+            rows().forEach(consumer);
+            return null;
+        }).when(repository).streamByUser(eq(7L), any());
+    }
+
+    @Test
+    void writesIdAsNumericCell() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Long> progress = new ArrayList<>();
+
+        exportService.exportNotes(7L, ExportFormat.EXCEL, out, progress::add);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals("ID", sheet.getRow(0).getCell(0).getStringCellValue());
+            Row first = sheet.getRow(1);
+            assertEquals(CellType.NUMERIC, first.getCell(0).getCellType());
+            assertEquals(12.0, first.getCell(0).getNumericCellValue());
+            assertEquals("Купить хлеб", first.getCell(1).getStringCellValue());
+            assertEquals("Завершено", first.getCell(4).getStringCellValue());
+            assertEquals("2024-05-01 09:30", first.getCell(5).getStringCellValue());
+            assertEquals(13.0, sheet.getRow(2).getCell(0).getNumericCellValue());
+            assertEquals(2, sheet.getLastRowNum());
+        }
+        assertEquals(List.of(1L, 2L), progress);
+    }
+
+    @Test
+    void writesCsvAndNdjson() throws IOException {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        exportService.exportNotes(7L, ExportFormat.CSV, csv, rows -> { });
+        assertEquals("""
+                ID,Заголовок,Содержание,Дата создания,Статус,Напоминание,Изображение\r
+                12,Купить хлеб,"и молоко, и сыр",2024-04-30,Завершено,2024-05-01 09:30,\r
+                13,Позвонить,,2024-04-30,В процессе,,ab/cd/abcd.png\r
+                """, csv.toString(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        exportService.exportNotes(7L, ExportFormat.NDJSON, ndjson, rows -> { });
+        String first = ndjson.toString(StandardCharsets.UTF_8).lines().findFirst().orElseThrow();
+        assertEquals("{\"id\":12,\"title\":\"Купить хлеб\",\"content\":\"и молоко, и сыр\","
+                + "\"createdDate\":\"2024-04-30\",\"status\":\"Завершено\",\"reminder\":\"2024-05-01 09:30\","
+                + "\"image\":\"\"}", first);
+    }
+
+    private static List<NoteExportRow> rows() {
+        NoteExportRow first = new NoteExportRow();
+        first.set(12, "Купить хлеб", "и молоко, и сыр", LocalDate.of(2024, 4, 30), true,
+                LocalDateTime.of(2024, 5, 1, 9, 30), null);
+        NoteExportRow second = new NoteExportRow();
+        second.set(13, "Позвонить", null, LocalDate.of(2024, 4, 30), false, null, "ab/cd/abcd.png");
+        return List.of(first, second);
+    }
+}
@@ -0,0 +1,150 @@
+package com.notesystem.service;
+
+import com.notesystem.dto.NoteField;
+import com.notesystem.dto.NoteOperation;
+import com.notesystem.dto.NoteOperationResult;
+import com.notesystem.dto.NotePage;
+import com.notesystem.dto.NoteRequest;
+import com.notesystem.model.Note;
+import com.notesystem.model.User;
+import com.notesystem.repository.NoteApiRepository;
+import com.notesystem.repository.NoteRepository;
+import com.notesystem.repository.UserRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Проверка пакетных операций API: порядок результатов, версии и полная замена при обновлении.
+ */
+class NoteApiServiceTest {
+
+    private final NoteService noteService = mock(NoteService.class);
+    private final NoteRepository noteRepository = mock(NoteRepository.class);
+    private final NoteApiRepository noteApiRepository = mock(NoteApiRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+    private final NoteApiService noteApiService = new NoteApiService(noteService, noteRepository, noteApiRepository,
+            userRepository, validatorFactory.getValidator(), 2, 3, 5);
+    private final User user = user();
+
+    @AfterEach
+    void closeValidator() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void returnsResultOfEachOperationInOrder() {
+        when(userRepository.getReferenceById(7L)).thenReturn(user);
+        when(noteRepository.findByUserAndIdIn(eq(user), any())).thenReturn(List.of(note(1L, 4L), note(2L, 1L)));
+        Note created = note(null, null);
+        when(noteService.createNote(any(), eq(user), isNull(), isNull())).thenAnswer(invocation -> {
+            created.setId(10L);
+            created.setVersion(0L);
+            return created;
+        });
+        Note updated = note(1L, 5L);
+        when(noteService.replaceNote(eq(1L), eq(user), any(), isNull())).thenReturn(updated);
+
+        List<NoteOperationResult> results = noteApiService.batch(7L, List.of(
+                new NoteOperation(NoteOperation.Type.CREATE, null, null, request("Новая")),
+                new NoteOperation(NoteOperation.Type.UPDATE, 1L, 4L, request("Изменённая")),
+                new NoteOperation(NoteOperation.Type.UPDATE, 2L, 0L, request("Устаревшая")),
+                new NoteOperation(NoteOperation.Type.DELETE, 3L, null, null),
+                new NoteOperation(NoteOperation.Type.UPDATE, 2L, null, request(" "))));
+
+        assertEquals(List.of(
+                NoteOperationResult.created(10L, 0L),
+                NoteOperationResult.updated(1L, 5L),
+                NoteOperationResult.conflict(2L, 1L),
+                NoteOperationResult.notFound(3L),
+                NoteOperationResult.invalid(2L, "Заголовок обязателен")), results);
+        verify(noteRepository).flush();
+        verify(noteService, never()).deleteNote(any(), any());
+    }
+
+    @Test
+    void updateWithoutReminderClearsIt() {
+        when(userRepository.getReferenceById(7L)).thenReturn(user);
+        Note note = note(1L, 4L);
+        note.setReminder(LocalDateTime.of(2024, 5, 1, 9, 30));
+        when(noteRepository.findByUserAndIdIn(eq(user), any())).thenReturn(List.of(note));
+        when(noteService.replaceNote(eq(1L), eq(user), any(), any())).thenReturn(note);
+
+        noteApiService.apply(7L, new NoteOperation(NoteOperation.Type.UPDATE, 1L, null, request("Без напоминания")));
+
+        verify(noteService).replaceNote(eq(1L), eq(user), any(), isNull());
+        verify(noteService, never()).updateNote(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void rejectsEmptyAndOversizedBatch() {
+        NoteOperation delete = new NoteOperation(NoteOperation.Type.DELETE, 1L, null, null);
+        NoteOperation[] tooMany = new NoteOperation[6];
+        Arrays.fill(tooMany, delete);
+
+        assertThrows(IllegalArgumentException.class, () -> noteApiService.batch(7L, List.of()));
+        assertThrows(IllegalArgumentException.class, () -> noteApiService.batch(7L, List.of(tooMany)));
+    }
+
+    @Test
+    void pagesBySelectedFields() {
+        Set<NoteField> fields = NoteField.parse("title");
+        when(noteApiRepository.findPage(7L, fields, 0L, 3)).thenReturn(List.of(item(1L), item(2L), item(3L)));
+
+        NotePage first = noteApiService.list(7L, fields, null, null);
+
+        assertEquals(List.of(item(1L), item(2L)), first.items());
+        when(noteApiRepository.findPage(7L, fields, 2L, 3)).thenReturn(List.of(item(3L)));
+        NotePage second = noteApiService.list(7L, fields, first.nextCursor(), null);
+        assertEquals(List.of(item(3L)), second.items());
+        assertNull(second.nextCursor());
+        assertEquals(Set.of(NoteField.ID, NoteField.VERSION, NoteField.TITLE), fields);
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> noteApiService.list(7L, NoteField.parse(null), "не курсор", null));
+    }
+
+    private static User user() {
+        User user = new User("user7", "password");
+        user.setId(7L);
+        return user;
+    }
+
+    private static NoteRequest request(String title) {
+        NoteRequest request = new NoteRequest();
+        request.setTitle(title);
+        return request;
+    }
+
+    private static Note note(Long id, Long version) {
+        Note note = new Note("Заметка", null);
+        note.setId(id);
+        note.setVersion(version);
+        return note;
+    }
+
+    private static Map<String, Object> item(Long id) {
+        return Map.of("id", id, "version", 0L, "title", "Заметка " + id);
+    }
+}
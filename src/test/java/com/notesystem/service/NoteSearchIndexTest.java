@@ -0,0 +1,96 @@
+package com.notesystem.service;
+
+import com.notesystem.dto.NoteIndexRow;
+import com.notesystem.dto.NoteSuggestion;
+import com.notesystem.model.Note;
+import com.notesystem.model.User;
+import com.notesystem.repository.NoteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Проверка индекса подсказок, в том числе изменений, пришедших во время его построения.
+ */
+class NoteSearchIndexTest {
+
+    private final NoteRepository noteRepository = mock(NoteRepository.class);
+    private final NoteSearchIndex index = new NoteSearchIndex(noteRepository, 10, 100_000, new SimpleMeterRegistry());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final User user = user(1L);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void findsByPrefixAndTypo() {
+        when(noteRepository.findIndexRowsByUser(any())).thenReturn(List.of(
+                new NoteIndexRow(1L, "Купить хлеб", "и молоко", false),
+                new NoteIndexRow(2L, "Позвонить маме", null, true)));
+
+        assertEquals(List.of(new NoteSuggestion(1L, "Купить хлеб", false)), index.suggest(user, "мол", 10));
+        assertEquals(List.of(new NoteSuggestion(2L, "Позвонить маме", true)), index.suggest(user, "позвнить", 10));
+        assertEquals(List.of(), index.suggest(user, "кот", 10));
+    }
+
+    @Test
+    void appliesChangesMadeDuringBuild() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(noteRepository.findIndexRowsByUser(any())).thenAnswer(invocation -> {
+            loading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return List.of(
+                    new NoteIndexRow(1L, "Купить хлеб", null, false),
+                    new NoteIndexRow(2L, "Хлеб к ужину", null, false));
+        });
+
+        Future<List<NoteSuggestion>> first = executor.submit(() -> index.suggest(user, "хлеб", 10));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // Снимок уже прочитан, изменения копятся до конца построения
+        index.onNoteSaved(note(3L, "Свежий хлеб"));
+        index.onNoteSaved(note(1L, "Купить молоко"));
+        index.onNoteDeleted(user.getId(), 2L);
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(new NoteSuggestion(3L, "Свежий хлеб", false)), index.suggest(user, "хлеб", 10));
+        assertEquals(List.of(new NoteSuggestion(1L, "Купить молоко", false)), index.suggest(user, "молоко", 10));
+    }
+
+    @Test
+    void ignoresChangesOfUnloadedUsers() {
+        index.onNoteSaved(note(1L, "Купить хлеб"));
+        when(noteRepository.findIndexRowsByUser(any())).thenReturn(List.of());
+
+        assertEquals(List.of(), index.suggest(user, "хлеб", 10));
+    }
+
+    private Note note(Long id, String title) {
+        Note note = new Note(title, null);
+        note.setId(id);
+        note.setUser(user);
+        return note;
+    }
+
+    private static User user(Long id) {
+        User user = new User("user" + id, "password");
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,185 @@
+package com.notesystem.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка хранилища S3 на MinIO: запись, чтение, удаление, загрузка по частям,
+ * Range по прямой ссылке и вытеснение копий из локального кеша.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class S3BlobStoreTest {
+
+    private static final String BUCKET = "notes-test";
+    private static final long PART_SIZE = 5 * 1024 * 1024;
+
+    @Container
+    private static final MinIOContainer MINIO = new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z");
+
+    private static S3Client s3;
+    private static S3Presigner presigner;
+
+    @TempDir
+    Path directory;
+
+    private S3BlobStore store;
+
+    @BeforeAll
+    static void createBucket() {
+        var credentials = StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(MINIO.getUserName(), MINIO.getPassword()));
+        S3Configuration pathStyle = S3Configuration.builder().pathStyleAccessEnabled(true).build();
+        s3 = S3Client.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .serviceConfiguration(pathStyle)
+                .endpointOverride(URI.create(MINIO.getS3URL()))
+                .build();
+        presigner = S3Presigner.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .serviceConfiguration(pathStyle)
+                .endpointOverride(URI.create(MINIO.getS3URL()))
+                .build();
+        s3.createBucket(CreateBucketRequest.builder().bucket(BUCKET).build());
+    }
+
+    @AfterAll
+    static void close() {
+        presigner.close();
+        s3.close();
+    }
+
+    @BeforeEach
+    void createStore() throws IOException {
+        store = store(1024 * 1024, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void putsReadsAndDeletesObject() throws IOException {
+        byte[] content = bytes(1000, 1);
+
+        store.put("ab/cd/put.png", file(content), "image/png");
+
+        assertTrue(store.exists("ab/cd/put.png"));
+        try (InputStream in = store.open("ab/cd/put.png")) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        try (LocalFile local = store.localFile("ab/cd/put.png").orElseThrow()) {
+            assertArrayEquals(content, read(local));
+        }
+
+        store.delete("ab/cd/put.png");
+
+        assertFalse(store.exists("ab/cd/put.png"));
+        assertEquals(Optional.empty(), store.localFile("ab/cd/put.png"));
+        assertThrows(IOException.class, () -> store.open("ab/cd/put.png"));
+    }
+
+    @Test
+    void uploadsLargeFileInParts() throws IOException {
+        // Части кроме последней не меньше 5 МБ — ограничение S3
+        byte[] content = bytes((int) (2 * PART_SIZE + 12345), 2);
+        S3BlobStore multipart = new S3BlobStore(s3, presigner, BUCKET, PART_SIZE,
+                new BlobCache(directory.resolve("multipart"), 64 * 1024 * 1024), null);
+
+        multipart.put("ab/cd/large.bin", file(content), "application/octet-stream");
+
+        try (InputStream in = multipart.open("ab/cd/large.bin")) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void servesRangeByPresignedUrl() throws IOException, InterruptedException {
+        byte[] content = bytes(4096, 3);
+        store.put("ab/cd/range.png", file(content), "image/png");
+        URI url = store.downloadUrl("ab/cd/range.png").orElseThrow();
+
+        HttpResponse<byte[]> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(url).header("Range", "bytes=100-199").build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(206, response.statusCode());
+        assertEquals("bytes 100-199/4096", response.headers().firstValue("Content-Range").orElseThrow());
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 200), response.body());
+        assertEquals("private, max-age=31536000, immutable",
+                response.headers().firstValue("Cache-Control").orElseThrow());
+    }
+
+    @Test
+    void openCopySurvivesEvictionFromCache() throws IOException {
+        S3BlobStore small = store(1000, null);
+        byte[] first = bytes(800, 4);
+        byte[] second = bytes(800, 5);
+        small.put("ab/cd/first.png", file(first), "image/png");
+        small.put("ab/cd/second.png", file(second), "image/png");
+
+        try (LocalFile served = small.localFile("ab/cd/first.png").orElseThrow()) {
+            assertTrue(served.evictable());
+            small.localFile("ab/cd/second.png").orElseThrow().close();
+
+            assertFalse(Files.exists(served.path()));
+            assertArrayEquals(first, read(served));
+        }
+        // Вытесненный объект снова скачивается из хранилища
+        try (LocalFile reloaded = small.localFile("ab/cd/first.png").orElseThrow()) {
+            assertArrayEquals(first, read(reloaded));
+        }
+    }
+
+    private S3BlobStore store(long cacheSize, Duration presignTtl) throws IOException {
+        return new S3BlobStore(s3, presigner, BUCKET, PART_SIZE,
+                new BlobCache(directory.resolve("cache-" + cacheSize), cacheSize), presignTtl);
+    }
+
+    private Path file(byte[] content) throws IOException {
+        return Files.write(Files.createTempFile(directory, "blob-", ".bin"), content);
+    }
+
+    private static byte[] bytes(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] read(LocalFile file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) file.size());
+        while (buffer.hasRemaining()) {
+            file.channel().read(buffer, buffer.position());
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,103 @@
+package com.notesystem.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка клиента Bot API на локальной заглушке HTTP-сервера.
+ */
+class TelegramBotClientTest {
+
+    private HttpServer server;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private volatile int failureStatus;
+    private volatile String failureBody = "";
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/bottest-token/sendMessage", exchange -> {
+            requests.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            boolean fail = failuresLeft.getAndDecrement() > 0;
+            byte[] body = (fail ? failureBody : "{\"ok\":true}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(fail ? failureStatus : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    private TelegramBotClient client() {
+        return new TelegramBotClient("http://127.0.0.1:" + server.getAddress().getPort(), "test-token",
+                Duration.ofSeconds(1), Duration.ofSeconds(2), 3, Duration.ofMillis(10), Duration.ofMillis(50));
+    }
+
+    @Test
+    void sendsEncodedFormBody() throws InterruptedException {
+        client().sendMessage("42", "Напоминание: купить хлеб & молоко");
+
+        assertEquals(1, requests.size());
+        // Тело проверяется как есть: амперсанд в тексте не должен разорвать его на лишние поля
+        String body = requests.get(0);
+        assertTrue(body.contains("%26"), body);
+        String[] fields = body.split("&");
+        assertEquals(2, fields.length, body);
+        assertEquals("chat_id=42", fields[0]);
+        assertEquals("text=Напоминание: купить хлеб & молоко",
+                URLDecoder.decode(fields[1], StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void retriesServerErrorsAndRateLimits() throws InterruptedException {
+        failuresLeft.set(2);
+        failureStatus = 429;
+        failureBody = "{\"ok\":false,\"error_code\":429,\"parameters\":{\"retry_after\":0}}";
+
+        client().sendMessage("42", "text");
+
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        failuresLeft.set(10);
+        failureStatus = 502;
+
+        assertThrows(TelegramDeliveryException.class, () -> client().sendMessage("42", "text"));
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        failuresLeft.set(1);
+        failureStatus = 400;
+        failureBody = "{\"ok\":false,\"description\":\"Bad Request: chat not found\"}";
+
+        TelegramDeliveryException e = assertThrows(TelegramDeliveryException.class,
+                () -> client().sendMessage("42", "text"));
+        assertTrue(e.getMessage().contains("400"));
+        assertEquals(1, requests.size());
+    }
+}
@@ -0,0 +1,97 @@
+package com.notesystem.service;
+
+import com.notesystem.repository.NoteBulkRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Проверка разделения сбоев построения копий на окончательные и временные.
+ */
+class ThumbnailServiceTest {
+
+    private static final long RETRY_DELAY = 600_000;
+    private static final String IMAGE = "abc.png";
+
+    private final NoteBulkRepository repository = mock(NoteBulkRepository.class);
+    private final FileStorageService storage = mock(FileStorageService.class);
+    private ThumbnailService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(storage.variantName(anyString(), anyString(), anyString())).thenCallRealMethod();
+        when(storage.imageExists(anyString())).thenReturn(false);
+        service = new ThumbnailService(repository, mock(NoteCacheEvictor.class), storage,
+                1, 10, 50_000_000, 10, RETRY_DELAY, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void marksMissingImageUnavailable() throws IOException {
+        when(storage.openImage(IMAGE)).thenThrow(new NoSuchFileException(IMAGE));
+
+        service.submit(1L, IMAGE);
+
+        verify(repository, timeout(5000)).updateThumbnails(1L, IMAGE, "", "");
+        verify(repository, never()).deferThumbnails(anyLong(), anyString(), anyLong());
+    }
+
+    @Test
+    void marksCorruptImageUnavailable() throws IOException {
+        byte[] png = png();
+        when(storage.openImage(IMAGE)).thenReturn(new ByteArrayInputStream(Arrays.copyOf(png, 40)));
+
+        service.submit(1L, IMAGE);
+
+        verify(repository, timeout(5000)).updateThumbnails(1L, IMAGE, "", "");
+    }
+
+    @Test
+    void defersOnReadFailure() throws IOException {
+        when(storage.openImage(IMAGE)).thenThrow(new IOException("Connection reset"));
+
+        service.submit(1L, IMAGE);
+
+        verify(repository, timeout(5000)).deferThumbnails(1L, IMAGE, RETRY_DELAY);
+        verify(repository, never()).updateThumbnails(anyLong(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void defersOnWriteFailure() throws IOException {
+        when(storage.openImage(IMAGE)).thenReturn(new ByteArrayInputStream(png()));
+        doThrow(new IOException("No space left on device")).when(storage).writeImage(anyString(), any());
+
+        service.submit(1L, IMAGE);
+
+        verify(repository, timeout(5000)).deferThumbnails(1L, IMAGE, RETRY_DELAY);
+        verify(repository, never()).updateThumbnails(anyLong(), anyString(), anyString(), anyString());
+    }
+
+    private static byte[] png() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,77 @@
+package com.notesystem.service;
+
+import com.notesystem.dto.TokenRevocation;
+import com.notesystem.repository.TokenRepository;
+import org.junit.jupiter.api.Test;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Проверка отзыва по jti и по пользователю, в том числе после перечитывания журнала.
+ */
+class TokenDenylistTest {
+
+    private static final Instant REVOKED_AT = Instant.parse("2024-05-01T09:30:00.500Z");
+    private static final Instant EXPIRES_AT = REVOKED_AT.plusSeconds(900);
+
+    private final TokenRepository tokenRepository = mock(TokenRepository.class);
+    private final TokenDenylist denylist = new TokenDenylist(tokenRepository);
+
+    @Test
+    void revokesSingleToken() {
+        denylist.add(new TokenRevocation("jti-1", null, REVOKED_AT, EXPIRES_AT));
+
+        assertTrue(denylist.isRevoked("jti-1", 7L, REVOKED_AT));
+        assertFalse(denylist.isRevoked("jti-2", 7L, REVOKED_AT));
+    }
+
+    @Test
+    void revokesTokensIssuedUpToRevocationSecond() {
+        denylist.add(new TokenRevocation(null, 7L, REVOKED_AT, EXPIRES_AT));
+
+        assertTrue(denylist.isRevoked("jti-1", 7L, REVOKED_AT.minusSeconds(60)));
+        // iat хранится в секундах: токен той же секунды тоже отозван
+        assertTrue(denylist.isRevoked("jti-1", 7L, Instant.parse("2024-05-01T09:30:00Z")));
+        assertFalse(denylist.isRevoked("jti-1", 7L, Instant.parse("2024-05-01T09:30:01Z")));
+        assertFalse(denylist.isRevoked("jti-1", 8L, REVOKED_AT.minusSeconds(60)));
+    }
+
+    @Test
+    void picksUpRevocationsOfOtherInstances() {
+        when(tokenRepository.findActiveRevocations(any())).thenReturn(List.of(
+                new TokenRevocation("jti-1", null, REVOKED_AT, EXPIRES_AT)));
+
+        denylist.refresh();
+
+        assertTrue(denylist.isRevoked("jti-1", 7L, REVOKED_AT));
+    }
+
+    @Test
+    void keepsOwnRevocationMissingFromSnapshot() {
+        // Снимок прочитан до фиксации собственного отзыва
+        denylist.add(new TokenRevocation("jti-1", null, REVOKED_AT, EXPIRES_AT));
+        when(tokenRepository.findActiveRevocations(any())).thenReturn(List.of());
+
+        denylist.refresh();
+
+        assertTrue(denylist.isRevoked("jti-1", 7L, REVOKED_AT));
+    }
+
+    @Test
+    void keepsPreviousSnapshotWhenRefreshFails() {
+        when(tokenRepository.findActiveRevocations(any())).thenReturn(List.of(
+                new TokenRevocation(null, 7L, REVOKED_AT, EXPIRES_AT)));
+        denylist.refresh();
+        when(tokenRepository.findActiveRevocations(any())).thenThrow(new IllegalStateException("db down"));
+
+        denylist.refresh();
+
+        assertTrue(denylist.isRevoked("jti-1", 7L, REVOKED_AT.minusSeconds(60)));
+    }
+}
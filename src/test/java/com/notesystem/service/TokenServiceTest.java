@@ -0,0 +1,187 @@
+package com.notesystem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notesystem.dto.TokenPair;
+import com.notesystem.model.User;
+import com.notesystem.repository.TokenRepository;
+import com.notesystem.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Проверка подписи и срока access-токенов и одноразовости refresh-токенов.
+ */
+class TokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final TokenRepository tokenRepository = mock(TokenRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TokenDenylist denylist = new TokenDenylist(tokenRepository);
+    private final TokenService tokenService = tokenService(Duration.ofMinutes(15));
+    private final User user = user(7L);
+
+    @Test
+    void verifiesIssuedToken() {
+        TokenPair pair = tokenService.issue(user);
+
+        TokenService.AccessToken token = tokenService.verify(pair.accessToken());
+
+        assertEquals(7L, token.principal().id());
+        assertEquals("user7", token.principal().username());
+        assertEquals(User.Role.USER, token.principal().role());
+        verify(tokenRepository).createRefreshToken(eq(7L), anyString(), any());
+    }
+
+    @Test
+    void rejectsTamperedSignature() {
+        String[] parts = tokenService.issue(user).accessToken().split("\\.");
+        byte[] signature = DECODER.decode(parts[2]);
+        signature[0] ^= 1;
+
+        assertThrows(BadCredentialsException.class,
+                () -> tokenService.verify(parts[0] + "." + parts[1] + "." + ENCODER.encodeToString(signature)));
+    }
+
+    @Test
+    void rejectsTamperedClaims() {
+        String[] parts = tokenService.issue(user).accessToken().split("\\.");
+        String claims = new String(DECODER.decode(parts[1]), StandardCharsets.UTF_8).replace("USER", "ADMIN");
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.verify(
+                parts[0] + "." + ENCODER.encodeToString(claims.getBytes(StandardCharsets.UTF_8)) + "." + parts[2]));
+    }
+
+    @Test
+    void rejectsChangedAlgorithm() {
+        String[] parts = tokenService.issue(user).accessToken().split("\\.");
+        String none = ENCODER.encodeToString("{\"alg\":\"none\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.US_ASCII));
+        String hs512 = ENCODER.encodeToString("{\"alg\":\"HS512\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.US_ASCII));
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.verify(none + "." + parts[1] + "."));
+        assertThrows(BadCredentialsException.class,
+                () -> tokenService.verify(hs512 + "." + parts[1] + "." + parts[2]));
+    }
+
+    @Test
+    void rejectsTokenOfOtherKey() {
+        TokenService other = new TokenService(tokenRepository, userRepository, denylist, new ObjectMapper(),
+                Base64.getEncoder().encodeToString("another secret of thirty-two bytes".getBytes(StandardCharsets.US_ASCII)),
+                "notes", Duration.ofMinutes(15), Duration.ofDays(30));
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.verify(other.issue(user).accessToken()));
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        TokenService expiring = tokenService(Duration.ZERO);
+
+        assertThrows(CredentialsExpiredException.class, () -> expiring.verify(expiring.issue(user).accessToken()));
+    }
+
+    @Test
+    void rejectsDenylistedToken() {
+        String accessToken = tokenService.issue(user).accessToken();
+        String other = tokenService.issue(user).accessToken();
+        TokenService.AccessToken token = tokenService.verify(accessToken);
+
+        tokenService.logout(token, null);
+
+        verify(tokenRepository).revokeAccessToken(token.jti(), token.expiresAt());
+        assertThrows(BadCredentialsException.class, () -> tokenService.verify(accessToken));
+        // Отзыв по jti не затрагивает другие токены пользователя
+        assertEquals(7L, tokenService.verify(other).principal().id());
+    }
+
+    @Test
+    void refreshRotatesRefreshToken() {
+        TokenPair first = tokenService.issue(user);
+        when(tokenRepository.lockRefreshToken(anyString())).thenReturn(Optional.of(
+                new TokenRepository.RefreshTokenRow(1L, 7L, Instant.now().plusSeconds(60), false, false)));
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+
+        TokenPair second = tokenService.refresh(first.refreshToken());
+
+        assertNotEquals(first.refreshToken(), second.refreshToken());
+        verify(tokenRepository).replaceRefreshToken(1L);
+        assertEquals(7L, tokenService.verify(second.accessToken()).principal().id());
+    }
+
+    @Test
+    void refreshReuseRevokesAllTokensOfUser() {
+        TokenPair stolen = tokenService.issue(user);
+        when(tokenRepository.lockRefreshToken(anyString())).thenReturn(Optional.of(
+                new TokenRepository.RefreshTokenRow(1L, 7L, Instant.now().plusSeconds(60), true, true)));
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.refresh(stolen.refreshToken()));
+
+        verify(tokenRepository).revokeRefreshTokensOfUser(7L);
+        verify(tokenRepository).revokeAccessTokensOfUser(eq(7L), any(), any());
+        verify(tokenRepository, never()).replaceRefreshToken(anyLong());
+        // Access-токен, выданный до отзыва, больше не принимается
+        assertThrows(BadCredentialsException.class, () -> tokenService.verify(stolen.accessToken()));
+    }
+
+    @Test
+    void rejectsRevokedRefreshTokenWithoutRevokingUser() {
+        TokenPair loggedOut = tokenService.issue(user);
+        when(tokenRepository.lockRefreshToken(anyString())).thenReturn(Optional.of(
+                new TokenRepository.RefreshTokenRow(1L, 7L, Instant.now().plusSeconds(60), true, false)));
+
+        BadCredentialsException e = assertThrows(BadCredentialsException.class,
+                () -> tokenService.refresh(loggedOut.refreshToken()));
+
+        assertEquals("Refresh-токен отозван", e.getMessage());
+        verify(tokenRepository, never()).revokeRefreshTokensOfUser(anyLong());
+        verify(tokenRepository, never()).replaceRefreshToken(anyLong());
+        // Выход с одного устройства не отзывает access-токены пользователя
+        assertEquals(7L, tokenService.verify(loggedOut.accessToken()).principal().id());
+    }
+
+    @Test
+    void rejectsExpiredRefreshToken() {
+        when(tokenRepository.lockRefreshToken(anyString())).thenReturn(Optional.of(
+                new TokenRepository.RefreshTokenRow(1L, 7L, Instant.now().minusSeconds(1), false, false)));
+
+        assertThrows(CredentialsExpiredException.class, () -> tokenService.refresh("expired"));
+        verify(tokenRepository, never()).replaceRefreshToken(anyLong());
+    }
+
+    @Test
+    void rejectsUnknownRefreshToken() {
+        when(tokenRepository.lockRefreshToken(anyString())).thenReturn(Optional.empty());
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.refresh("unknown"));
+    }
+
+    private TokenService tokenService(Duration accessTtl) {
+        return new TokenService(tokenRepository, userRepository, denylist, new ObjectMapper(),
+                SECRET, "notes", accessTtl, Duration.ofDays(30));
+    }
+
+    private static User user(Long id) {
+        User user = new User("user" + id, "password");
+        user.setId(id);
+        return user;
+    }
+}